@@ -0,0 +1,38 @@
+package hello.springtx.bench;
+
+import hello.springtx.SpringtxApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 (내장 H2)
+ * application.properties 의 트랜젝션/SQL 로그는 측정에 영향을 주므로 끈다.
+ */
+final class BenchmarkContext {
+
+    private static final String[] QUIET_LOGGING = {
+            "logging.level.root=WARN",
+            "logging.level.org.springframework.transaction.interceptor=WARN",
+            "logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+            "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+            "logging.level.org.hibernate.resource.transaction=WARN",
+            "logging.level.org.hibernate.SQL=WARN",
+            "logging.level.hello.springtx=WARN",
+            "spring.output.ansi.enabled=never"
+    };
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        String[] all = Stream.concat(Arrays.stream(QUIET_LOGGING), Arrays.stream(properties)).toArray(String[]::new);
+        return new SpringApplicationBuilder(SpringtxApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(all)
+                .run();
+    }
+}
@@ -0,0 +1,71 @@
+package hello.springtx.bench;
+
+import hello.springtx.engine.OrderProcessingEngine;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * OrderProcessingEngine 실행 모드 비교 : PLATFORM (풀 크기 worker) vs VIRTUAL (주문마다 가상 스레드)
+ * IN_FLIGHT 건을 한번에 제출하고 모두 끝날 때까지 기다린다. 결과는 주문 1건 기준 (OperationsPerInvocation)
+ * gc 프로파일러의 gc.alloc.rate.norm 으로 처리 중인 주문 1건당 할당량을 비교한다.
+ * (플랫폼 스레드 스택은 힙 밖이라 gc 프로파일러에 잡히지 않는다. PLATFORM 은 worker 수 만큼만 스레드를 만든다.)
+ *
+ * VIRTUAL 은 JDK 21+ 에서 실행해야 한다. 그 미만이면 PLATFORM 으로 동작하므로 두 결과가 같다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+public class ExecutionModeBenchmark {
+
+    private static final int IN_FLIGHT = 1_000;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String threads;
+
+    private ConfigurableApplicationContext context;
+    private OrderProcessingEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "order.engine.threads=" + threads,
+                "order.engine.queue-capacity=" + IN_FLIGHT,
+                "order.engine.admission=WAIT");
+        engine = context.getBean(OrderProcessingEngine.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public List<OrderResult> submitOrders() {
+        List<CompletableFuture<OrderResult>> futures = new ArrayList<>(IN_FLIGHT);
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            Order order = new Order();
+            order.setUsername(i % 10 == 0 ? "잔고부족" : "정상");
+            futures.add(engine.submit(order));
+        }
+        List<OrderResult> results = new ArrayList<>(IN_FLIGHT);
+        for (CompletableFuture<OrderResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+}
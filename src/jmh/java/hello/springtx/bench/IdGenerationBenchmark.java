@@ -0,0 +1,76 @@
+package hello.springtx.bench;
+
+import hello.springtx.bench.id.AutoIdEntity;
+import hello.springtx.bench.id.IdentityIdEntity;
+import hello.springtx.bench.id.PooledIdEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.function.IntFunction;
+
+/**
+ * ID 생성 전략별 insert 처리량 비교
+ * AUTO (hibernate 기본 시퀀스, 블록 크기 1) / IDENTITY (batch insert 불가) / POOLED (PooledSequenceGenerator)
+ * 트랜젝션 하나에 CHUNK 건을 저장한다. 결과는 1건 기준 (OperationsPerInvocation)
+ *
+ * 비교용 엔티티는 src/jmh 에만 있으므로 애플리케이션과 테스트의 엔티티 스캔에는 잡히지 않는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+public class IdGenerationBenchmark {
+
+    private static final int CHUNK = 100;
+
+    @Param({"AUTO", "IDENTITY", "POOLED"})
+    public String strategy;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private TransactionTemplate transactionTemplate;
+    private IntFunction<Object> factory;
+    private int sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        em = context.getBean(EntityManager.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        switch (strategy) {
+            case "AUTO":
+                factory = i -> new AutoIdEntity("auto" + i);
+                break;
+            case "IDENTITY":
+                factory = i -> new IdentityIdEntity("identity" + i);
+                break;
+            default:
+                factory = i -> new PooledIdEntity("pooled" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public void insert() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < CHUNK; i++) {
+                em.persist(factory.apply(sequence++));
+            }
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package hello.springtx.bench;
+
+import hello.springtx.propagation.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * joinV1 반복 (회원 1명당 트랜젝션 1개, 스레드 1개) vs joinAll (청크 트랜젝션, fork/join)
+ * parallelism 을 늘리면 커넥션 풀 크기(10) - 1 까지 처리량이 늘어나는지 확인한다. 결과는 회원 1명 기준
+ * threads=VIRTUAL 은 JDK 21+ 에서만 가상 스레드로 실행된다. (아니면 PLATFORM 과 같다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+public class JoinAllBenchmark {
+
+    private static final int MEMBERS = 1_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String threads;
+
+    private ConfigurableApplicationContext context;
+    private MemberService memberService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("member.join-all.parallelism=" + parallelism, "member.join-all.threads=" + threads);
+        memberService = context.getBean(MemberService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBERS)
+    public void joinV1_loop() {
+        for (String username : usernames()) {
+            memberService.joinV1(username);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEMBERS)
+    public Object joinAll() {
+        return memberService.joinAll(usernames());
+    }
+
+    private List<String> usernames() {
+        List<String> usernames = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            usernames.add("bench_" + sequence.incrementAndGet());
+        }
+        return usernames;
+    }
+}
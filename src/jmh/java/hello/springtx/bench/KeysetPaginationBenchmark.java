@@ -0,0 +1,117 @@
+package hello.springtx.bench;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogDto;
+import hello.springtx.propagation.LogRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * offset 페이징 vs keyset 페이징 (rows 건 테이블, 페이지 크기 20)
+ * offset 은 앞 페이지 행을 모두 읽고 버리므로 page 가 깊을수록 느려지고,
+ * keyset 은 인덱스에서 lastId 위치를 바로 찾으므로 page 와 관계없이 비용이 같다.
+ *
+ * 10M 건 orders, log 테이블을 메모리 H2 에 올리므로 힙을 넉넉히 준다.
+ * 빠르게 확인할 때는 JMH 옵션 -p rows=1000000 처럼 rows 를 줄여서 실행한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class KeysetPaginationBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param("10000000")
+    public long rows;
+
+    @Param({"1", "1000", "100000"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private LogRepository logRepository;
+    private EntityManager em;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        orderRepository = context.getBean(OrderRepository.class);
+        logRepository = context.getBean(LogRepository.class);
+        em = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        // id 1 ~ rows, 10건 중 1건은 대기
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into orders (id, username, pay_status) select x, 'bench', " +
+                "case when mod(x, 10) = 0 then '대기' else '완료' end from system_range(1, ?)", rows);
+        jdbcTemplate.update("insert into log (id, message, created_at, bucket)" +
+                " select x, 'bench_' || x, current_timestamp, ? from system_range(1, ?)", Log.bucketOf(LocalDate.now()), rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> orders_offset() {
+        return readOnly.execute(status -> em.createQuery("select o from Order o order by o.id", Order.class)
+                .setFirstResult(page * PAGE_SIZE)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Order> orders_keyset() {
+        return orderRepository.findPageAfter((long) page * PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Order> pendingOrders_offset() {
+        return readOnly.execute(status -> em.createQuery(
+                        "select o from Order o where o.payStatus = '대기' order by o.id", Order.class)
+                .setFirstResult(page * PAGE_SIZE)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<Order> pendingOrders_keyset() {
+        // 대기 주문은 10건마다 1건이므로 page 번째 페이지의 마지막 id
+        return orderRepository.findPageAfter("대기", (long) page * PAGE_SIZE * 10, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<LogDto> logs_offset() {
+        return readOnly.execute(status -> em.createQuery(
+                        "select new hello.springtx.propagation.LogDto(l.Id, l.message) from Log l order by l.Id", LogDto.class)
+                .setFirstResult(page * PAGE_SIZE)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<LogDto> logs_keyset() {
+        return logRepository.findPageAfter((long) page * PAGE_SIZE, PAGE_SIZE);
+    }
+}
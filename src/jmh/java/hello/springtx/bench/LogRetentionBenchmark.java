@@ -0,0 +1,93 @@
+package hello.springtx.bench;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.retention.LogRetentionJob;
+import hello.springtx.retention.RetentionReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 지난 bucket(rows 건) 하나 정리 : LogRetentionJob 청크 삭제 vs 트랜젝션 1개로 bucket 전체 이동/삭제
+ * 두 방식 모두 insert ... select + delete 이므로 전체 시간은 비슷해야 한다. (청크마다 id 조회, 커밋이 추가)
+ * 청크 삭제는 트랜젝션 하나가 chunkSize 행만 잡으므로 락을 잡는 시간이 singleTransaction 의 chunkSize / rows 정도로 줄어든다.
+ * 청크 트랜젝션 최대 시간은 RetentionReport.longestChunkMillis 로 확인한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LogRetentionBenchmark {
+
+    private static final LocalDate EXPIRED = LocalDate.now().minusDays(40);
+
+    @Param("200000")
+    public int rows;
+
+    @Param({"1000", "10000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private LogRetentionJob logRetentionJob;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private long nextId = 1;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("log.retention.archive=true", "log.retention.chunk-size=" + chunkSize);
+        logRetentionJob = context.getBean(LogRetentionJob.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 매 실행마다 지난 bucket 에 rows 건을 채운다. (id 는 log_archive 와 겹치지 않도록 계속 증가)
+     */
+    @Setup(Level.Invocation)
+    public void fillExpiredBucket() {
+        jdbcTemplate.update("insert into log (id, message, created_at, bucket)" +
+                        " select x, 'bench_' || x, ?, ? from system_range(?, ?)",
+                EXPIRED.atStartOfDay(), Log.bucketOf(EXPIRED), nextId, nextId + rows - 1);
+        nextId += rows;
+    }
+
+    @Benchmark
+    public RetentionReport chunked() {
+        return logRetentionJob.purgeBefore(EXPIRED.plusDays(1));
+    }
+
+    @Benchmark
+    public Integer singleTransaction() {
+        int bucket = Log.bucketOf(EXPIRED);
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.update("insert into log_archive (id, message, created_at, bucket)" +
+                    " select id, message, created_at, bucket from log where bucket = ?", bucket);
+            return jdbcTemplate.update("delete from log where bucket = ?", bucket);
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package hello.springtx.bench;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * username, message 조회 비용 : 1k -> 1M 건
+ * 인덱스 조회이므로 rows 가 늘어도 결과가 거의 같아야 한다. (full scan 이면 rows 에 비례)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+public class LookupIndexBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private LogRepository logRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        logRepository = context.getBean(LogRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("insert into member (id, username) select x, 'bulk_' || x from system_range(1, ?)", rows);
+        jdbcTemplate.update("insert into log (id, message, created_at, bucket)" +
+                " select x, 'bulk_' || x, current_timestamp, ? from system_range(1, ?)", Log.bucketOf(LocalDate.now()), rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean memberExistsByUsername() {
+        return memberRepository.existsByUsername(randomName());
+    }
+
+    @Benchmark
+    public boolean logExistsByMessage() {
+        return logRepository.existsByMessage(randomName());
+    }
+
+    private String randomName() {
+        return "bulk_" + (ThreadLocalRandom.current().nextInt(rows) + 1);
+    }
+}
@@ -0,0 +1,72 @@
+package hello.springtx.bench;
+
+import hello.springtx.importer.ImportFormat;
+import hello.springtx.importer.ImportReport;
+import hello.springtx.importer.MemberImporter;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 ROWS 명 등록 : MemberImporter (StatelessSession, chunkSize 행마다 커밋) vs MemberRepository.save() 반복 (행마다 커밋)
+ * 결과는 회원 1명 기준 (thrpt 결과 x 10^6 이 ImportReport.getRowsPerSecond() 와 같은 단위)
+ * StatelessSession insert 는 JDBC batch 가 아니므로 두 방식의 insert 횟수는 같고, 차이는 커밋 횟수와 영속성 컨텍스트 비용이다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+public class MemberImportBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"100", "1000"})
+    public int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberImporter memberImporter;
+    private MemberRepository memberRepository;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("member.import.chunk-size=" + chunkSize);
+        memberImporter = context.getBean(MemberImporter.class);
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ImportReport importer() {
+        StringBuilder csv = new StringBuilder(ROWS * 16);
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("bench_").append(sequence.incrementAndGet()).append('\n');
+        }
+        return memberImporter.importMembers(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), ImportFormat.CSV);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void save_loop() {
+        for (int i = 0; i < ROWS; i++) {
+            memberRepository.save(new Member("bench_" + sequence.incrementAndGet()));
+        }
+    }
+}
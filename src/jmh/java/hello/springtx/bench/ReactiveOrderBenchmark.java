@@ -0,0 +1,93 @@
+package hello.springtx.bench;
+
+import hello.springtx.engine.OrderProcessingEngine;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderResult;
+import hello.springtx.reactive.ReactiveOrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 동시 요청 IN_FLIGHT 건 처리 비교 : R2DBC (커넥션 10) vs OrderProcessingEngine (worker 9)
+ * IN_FLIGHT 건을 한번에 요청하고 모두 끝날 때까지 기다린다. 결과는 주문 1건 기준 (OperationsPerInvocation)
+ * 10% 예외(롤백), 10% 잔고부족(대기 커밋) 이 섞여 있다.
+ * SampleTime 으로 실행마다 걸린 시간의 분포(p50, p99 ...)를 본다.
+ *
+ * JPA(JDBC) 와 R2DBC 가 같은 메모리 DB 를 사용하도록 이름을 지정한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+public class ReactiveOrderBenchmark {
+
+    private static final int IN_FLIGHT = 10_000;
+
+    @Param({"REACTIVE", "BLOCKING"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private ReactiveOrderService reactiveOrderService;
+    private OrderProcessingEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "order.reactive.enabled=true",
+                "spring.datasource.url=jdbc:h2:mem:bench_reactive;DB_CLOSE_DELAY=-1",
+                "order.reactive.r2dbc-url=r2dbc:pool:h2:mem:///bench_reactive?maxSize=10",
+                "order.engine.queue-capacity=" + IN_FLIGHT,
+                "order.engine.admission=WAIT");
+        reactiveOrderService = context.getBean(ReactiveOrderService.class);
+        engine = context.getBean(OrderProcessingEngine.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public List<OrderResult> orders() {
+        return mode.equals("REACTIVE") ? reactive() : blocking();
+    }
+
+    private List<OrderResult> reactive() {
+        return Flux.range(0, IN_FLIGHT)
+                .flatMap(i -> reactiveOrderService.process(newOrder(i)), IN_FLIGHT)
+                .collectList()
+                .block(Duration.ofMinutes(2));
+    }
+
+    private List<OrderResult> blocking() {
+        List<CompletableFuture<OrderResult>> futures = new ArrayList<>(IN_FLIGHT);
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            futures.add(engine.submit(newOrder(i)));
+        }
+        List<OrderResult> results = new ArrayList<>(IN_FLIGHT);
+        for (CompletableFuture<OrderResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private static Order newOrder(int i) {
+        Order order = new Order();
+        order.setUsername(i % 10 == 0 ? "예외" : i % 10 == 1 ? "잔고부족" : "정상");
+        return order;
+    }
+}
@@ -0,0 +1,75 @@
+package hello.springtx.bench;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 읽기 경로 비용 : 읽기/쓰기 트랜젝션 vs readOnly 트랜젝션
+ * readOnly 는 엔티티 스냅샷을 만들지 않고(할당 감소), 커밋 시 flush/변경감지를 하지 않는다.(커밋 지연 감소)
+ * gc 프로파일러의 gc.alloc.rate.norm 으로 호출당 할당량을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+public class ReadPathBenchmark {
+
+    private static final int MEMBERS = 100;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager em;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        em = context.getBean(EntityManager.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        PlatformTransactionManager tm = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(tm);
+        readOnly = new TransactionTemplate(tm);
+        readOnly.setReadOnly(true);
+
+        for (int i = 0; i < MEMBERS; i++) {
+            memberRepository.save(new Member("read_" + i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> loadEntities_readWrite() {
+        return readWrite.execute(status -> loadMembers());
+    }
+
+    @Benchmark
+    public List<Member> loadEntities_readOnly() {
+        return readOnly.execute(status -> loadMembers());
+    }
+
+    @Benchmark
+    public boolean repositoryExists() {
+        return memberRepository.existsByUsername("read_50");
+    }
+
+    private List<Member> loadMembers() {
+        return em.createQuery("select m from Member m where m.username like 'read_%'", Member.class).getResultList();
+    }
+}
@@ -0,0 +1,94 @@
+package hello.springtx.bench;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 서비스 단위 트랜젝션 비용 (JpaTransactionManager)
+ * joinV1 : MemberService REQUIRED + LogRepository REQUIRES_NEW (커넥션 2개)
+ * joinV2 : MemberRepository, LogRepository 각각 트랜젝션
+ * order_* : OrderService.order() 의 결과별 (커밋 / 롤백 / 체크 예외 커밋)
+ *
+ * 참고 : DataSourceTransactionManager 는 EntityManager 를 트랜젝션에 묶지 않으므로
+ * JPA 를 사용하는 서비스 벤치마크는 JpaTransactionManager 로만 측정한다. (TransactionManagerBenchmark 참고)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+public class ServicePropagationBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private MemberService memberService;
+    private OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        memberService = context.getBean(MemberService.class);
+        orderService = context.getBean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void joinV1() {
+        memberService.joinV1("bench_v1_" + sequence.incrementAndGet());
+    }
+
+    @Benchmark
+    public void joinV2() {
+        memberService.joinV2("bench_v2_" + sequence.incrementAndGet());
+    }
+
+    @Benchmark
+    public Order order_complete() throws NotEnoughMoneyException {
+        Order order = newOrder("정상");
+        orderService.order(order);
+        return order;
+    }
+
+    @Benchmark
+    public Order order_runtimeException() {
+        Order order = newOrder("예외");
+        try {
+            orderService.order(order);
+        } catch (RuntimeException | NotEnoughMoneyException e) {
+            // 롤백
+        }
+        return order;
+    }
+
+    @Benchmark
+    public Order order_notEnoughMoney() {
+        Order order = newOrder("잔고부족");
+        try {
+            orderService.order(order);
+        } catch (NotEnoughMoneyException e) {
+            // 대기 상태로 커밋
+        }
+        return order;
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,87 @@
+package hello.springtx.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+
+import javax.sql.DataSource;
+
+/**
+ * PlatformTransactionManager 직접 사용 비용 (BasicTxText 시나리오)
+ * jpa : JpaTransactionManager, datasource : DataSourceTransactionManager
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+public class TransactionManagerBenchmark {
+
+    @Param({"jpa", "datasource"})
+    public String txManager;
+
+    private ConfigurableApplicationContext context;
+    private PlatformTransactionManager tm;
+
+    private final DefaultTransactionAttribute required = new DefaultTransactionAttribute();
+    private final DefaultTransactionAttribute requiresNew =
+            new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        if (txManager.equals("jpa")) {
+            tm = context.getBean(PlatformTransactionManager.class);
+        } else {
+            tm = new DataSourceTransactionManager(context.getBean(DataSource.class));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void commit() {
+        TransactionStatus status = tm.getTransaction(required);
+        tm.commit(status);
+    }
+
+    @Benchmark
+    public void rollback() {
+        TransactionStatus status = tm.getTransaction(required);
+        tm.rollback(status);
+    }
+
+    /**
+     * 외부 REQUIRED + 내부 REQUIRED (기존 트랜젝션 참여)
+     */
+    @Benchmark
+    public void inner_required() {
+        TransactionStatus outer = tm.getTransaction(required);
+        TransactionStatus inner = tm.getTransaction(required);
+        tm.commit(inner);
+        tm.commit(outer);
+    }
+
+    /**
+     * 외부 REQUIRED + 내부 REQUIRES_NEW (외부 트랜젝션 보류, 커넥션 추가 획득)
+     */
+    @Benchmark
+    public void inner_requiresNew() {
+        TransactionStatus outer = tm.getTransaction(required);
+        TransactionStatus inner = tm.getTransaction(requiresNew);
+        tm.commit(inner);
+        tm.commit(outer);
+    }
+}
@@ -0,0 +1,24 @@
+package hello.springtx.bench.id;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+/**
+ * 비교용 : 기존 방식 @GeneratedValue (AUTO)
+ */
+@Entity
+public class AutoIdEntity {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+    private String name;
+
+    protected AutoIdEntity() {
+    }
+
+    public AutoIdEntity(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,25 @@
+package hello.springtx.bench.id;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+
+/**
+ * 비교용 : IDENTITY (insert 후에 ID 를 알 수 있으므로 batch insert 불가)
+ */
+@Entity
+public class IdentityIdEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String name;
+
+    protected IdentityIdEntity() {
+    }
+
+    public IdentityIdEntity(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,32 @@
+package hello.springtx.bench.id;
+
+import hello.springtx.id.PooledSequenceGenerator;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+
+/**
+ * 비교용 : PooledSequenceGenerator
+ */
+@Entity
+public class PooledIdEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooled_id_generator")
+    @GenericGenerator(name = "pooled_id_generator", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = "sequence_name", value = "pooled_id_seq"),
+            @Parameter(name = "increment_size", value = "100")})
+    private Long id;
+    private String name;
+
+    protected PooledIdEntity() {
+    }
+
+    public PooledIdEntity(String name) {
+        this.name = name;
+    }
+}
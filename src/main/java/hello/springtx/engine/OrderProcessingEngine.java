@@ -0,0 +1,225 @@
+package hello.springtx.engine;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderResult;
+import hello.springtx.order.OrderService;
+import hello.springtx.pool.ConnectionPoolSize;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 주문 동시 처리
+ * submit() 은 바로 CompletableFuture 를 반환하고, 주문은 worker 스레드에서 OrderService.order() 로 처리한다.
+ * 주문마다 트랜젝션 1개를 사용하고 결과는 order() 의 규칙과 같다.
+ * 정상 : COMPLETED (커밋)
+ * 잔고부족 : NotEnoughMoneyException -> PENDING (payStatus 대기로 커밋)
+ * 예외 : RuntimeException -> ROLLED_BACK (롤백)
+ *
+ * worker 수는 커넥션 풀 크기 - order.engine.reserved-connections 이므로 엔진이 풀을 모두 차지하지 않는다.
+ * 처리 중 + 대기 중인 주문이 workers + queue-capacity 를 넘으면 admission 설정에 따라
+ * REJECT : 바로 OrderRejectedException 으로 실패
+ * WAIT : admission-timeout-ms 까지 자리가 나기를 기다린 후 실패
+ *
+ * order.engine.threads=VIRTUAL 이면 주문마다 가상 스레드를 사용한다. (JDK 21 미만이면 PLATFORM 으로 동작)
+ * 가상 스레드는 많이 만들 수 있지만 커넥션은 풀 크기만큼이므로, 동시에 트랜젝션을 시작하는 수는 workers 로 제한한다.
+ * 나머지는 Semaphore 에서 대기하고, 가상 스레드는 대기 중 캐리어 스레드를 반환한다.
+ * 트랜젝션 리소스(TransactionSynchronizationManager)는 ThreadLocal 이므로 작업 하나가 끝까지 같은 가상 스레드에서 실행되면 그대로 동작한다.
+ * synchronized 안에서 블록되면 캐리어 스레드에 고정(pinning)된다. (JDK 21~23, -Djdk.tracePinnedThreads=full 로 확인)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderProcessingEngine {
+
+    public enum Admission {
+        REJECT, WAIT
+    }
+
+    public enum Threads {
+        PLATFORM, VIRTUAL
+    }
+
+    private final OrderService orderService;
+    private final DataSource dataSource;
+
+    // 0 이면 커넥션 풀 크기 - reserved-connections
+    @Value("${order.engine.workers:0}")
+    private int workers;
+    @Value("${order.engine.reserved-connections:1}")
+    private int reservedConnections;
+    @Value("${order.engine.queue-capacity:1000}")
+    private int queueCapacity;
+    @Value("${order.engine.admission:REJECT}")
+    private Admission admission;
+    @Value("${order.engine.admission-timeout-ms:1000}")
+    private long admissionTimeoutMillis;
+    @Value("${order.engine.threads:PLATFORM}")
+    private Threads threads;
+
+    private ExecutorService executor;
+    private Semaphore admissionPermits;
+    // VIRTUAL : 동시에 주문을 처리하는 가상 스레드 수 제한 (workers)
+    private Semaphore concurrencyPermits;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        if (workers <= 0) {
+            workers = Math.max(1, ConnectionPoolSize.of(dataSource) - reservedConnections);
+        }
+        if (threads == Threads.VIRTUAL && !VirtualThreads.isSupported()) {
+            log.warn("가상 스레드를 지원하지 않는 JDK 입니다. PLATFORM 으로 동작합니다. version={}", Runtime.version());
+            threads = Threads.PLATFORM;
+        }
+        if (threads == Threads.VIRTUAL) {
+            executor = VirtualThreads.newPerTaskExecutor();
+            concurrencyPermits = new Semaphore(workers);
+        } else {
+            // worker 는 작업을 끝내기 전에 자리를 반환하므로, 자리를 받은 작업(workers + queueCapacity)에 더해
+            // 아직 끝나지 않은 작업(최대 workers)이 스레드를 차지하고 있을 수 있다.
+            // 큐를 workers + queueCapacity 로 두면 자리를 받은 작업은 모두 큐에 들어간다.
+            AtomicInteger threadNo = new AtomicInteger();
+            executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(workers + queueCapacity), r -> {
+                Thread thread = new Thread(r, "order-engine-" + threadNo.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        // 처리 중(workers) + 대기 중(queueCapacity) 만큼만 받는다.
+        admissionPermits = new Semaphore(workers + queueCapacity);
+        log.info("order engine threads={} workers={} queueCapacity={} admission={}",
+                threads, workers, queueCapacity, admission);
+    }
+
+    public CompletableFuture<OrderResult> submit(Order order) {
+        return submitTask(() -> process(order));
+    }
+
+    CompletableFuture<OrderResult> submitTask(Supplier<OrderResult> task) {
+        submitted.increment();
+        if (!admit()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new OrderRejectedException(
+                    "order engine queue full workers=" + workers + " queueCapacity=" + queueCapacity));
+        }
+        CompletableFuture<OrderResult> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                OrderResult result = null;
+                Throwable failure = null;
+                try {
+                    result = runTask(task);
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    // 결과를 알리기 전에 자리를 반환해야 완료를 확인한 호출자가 바로 다시 제출할 수 있다.
+                    processed.increment();
+                    admissionPermits.release();
+                }
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 종료된 executor 등 : 받은 자리를 반환하고 실패로 알린다.
+            admissionPermits.release();
+            rejected.increment();
+            future.completeExceptionally(new OrderRejectedException("order engine rejected " + e.getMessage()));
+        }
+        return future;
+    }
+
+    private OrderResult runTask(Supplier<OrderResult> task) throws InterruptedException {
+        if (concurrencyPermits == null) {
+            return task.get();
+        }
+        concurrencyPermits.acquire();
+        try {
+            return task.get();
+        } finally {
+            concurrencyPermits.release();
+        }
+    }
+
+    private boolean admit() {
+        if (admission == Admission.REJECT) {
+            return admissionPermits.tryAcquire();
+        }
+        try {
+            return admissionPermits.tryAcquire(admissionTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    OrderResult process(Order order) {
+        try {
+            orderService.order(order);
+            return OrderResult.completed(order);
+        } catch (NotEnoughMoneyException e) {
+            return OrderResult.pending(order, e.getMessage());
+        } catch (RuntimeException e) {
+            return OrderResult.rolledBack(order, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("order engine 종료 대기 시간 초과 inFlight={}", getInFlightCount());
+            executor.shutdownNow();
+        }
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public Threads getThreads() {
+        return threads;
+    }
+
+    /**
+     * 처리 중 + 대기 중인 주문 수
+     */
+    public int getInFlightCount() {
+        return workers + queueCapacity - admissionPermits.availablePermits();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+}
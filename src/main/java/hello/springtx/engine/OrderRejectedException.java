@@ -0,0 +1,14 @@
+package hello.springtx.engine;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 대기 큐가 가득 차서 주문을 받지 않음 (OrderProcessingEngine)
+ * 주문은 저장되지 않았으므로 잠시 후 다시 제출하면 된다.
+ */
+public class OrderRejectedException extends RejectedExecutionException {
+
+    public OrderRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,55 @@
+package hello.springtx.engine;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 가상 스레드 (JDK 21+) 사용 도우미
+ * 소스 레벨이 Java 11 이므로 API 를 리플렉션으로 호출한다. JDK 21 미만에서 실행하면 isSupported() 가 false 이다.
+ */
+public final class VirtualThreads {
+
+    private static final Method NEW_PER_TASK_EXECUTOR = findMethod("java.util.concurrent.Executors", "newVirtualThreadPerTaskExecutor");
+    private static final Method IS_VIRTUAL = findMethod("java.lang.Thread", "isVirtual");
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return NEW_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * 작업마다 가상 스레드를 새로 만드는 ExecutorService
+     * @throws UnsupportedOperationException JDK 21 미만
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("가상 스레드를 지원하지 않는 JDK 입니다. version=" + Runtime.version());
+        }
+        try {
+            return (ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("가상 스레드 executor 생성 실패", e);
+        }
+    }
+
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private static Method findMethod(String className, String methodName) {
+        try {
+            return Class.forName(className).getMethod(methodName);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
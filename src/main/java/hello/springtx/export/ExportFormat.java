@@ -0,0 +1,9 @@
+package hello.springtx.export;
+
+/**
+ * CSV : 첫 줄 헤더, 값에 , " 줄바꿈이 있으면 "..." 로 감싼다.
+ * NDJSON : 한 줄에 JSON 객체 하나
+ */
+public enum ExportFormat {
+    CSV, NDJSON
+}
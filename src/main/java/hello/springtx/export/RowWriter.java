@@ -0,0 +1,145 @@
+package hello.springtx.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 한 행씩 OutputStream 에 쓴다.
+ * 행마다 문자열을 새로 만들지 않도록 StringBuilder 하나를 재사용한다.
+ */
+class RowWriter {
+
+    private final Writer writer;
+    private final ExportFormat format;
+    private final String[] columns;
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    RowWriter(OutputStream out, ExportFormat format, String... columns) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.columns = columns;
+    }
+
+    void writeHeader() throws IOException {
+        if (format != ExportFormat.CSV) {
+            return;
+        }
+        buffer.setLength(0);
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            buffer.append(columns[i]);
+        }
+        buffer.append('\n');
+        writer.append(buffer);
+    }
+
+    void write(Object[] row) throws IOException {
+        buffer.setLength(0);
+        if (format == ExportFormat.CSV) {
+            appendCsv(row);
+        } else {
+            appendJson(row);
+        }
+        buffer.append('\n');
+        writer.append(buffer);
+    }
+
+    /**
+     * OutputStream 은 호출한 쪽에서 닫는다.
+     */
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    private void appendCsv(Object[] row) {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            Object value = row[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (value instanceof Number || !needsQuote(text)) {
+                buffer.append(text);
+                continue;
+            }
+            buffer.append('"');
+            for (int j = 0; j < text.length(); j++) {
+                char c = text.charAt(j);
+                if (c == '"') {
+                    buffer.append('"');
+                }
+                buffer.append(c);
+            }
+            buffer.append('"');
+        }
+    }
+
+    private boolean needsQuote(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void appendJson(Object[] row) {
+        buffer.append('{');
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            buffer.append('"').append(columns[i]).append("\":");
+            Object value = row[i];
+            if (value == null) {
+                buffer.append("null");
+            } else if (value instanceof Number) {
+                buffer.append(value);
+            } else {
+                appendJsonString(value.toString());
+            }
+        }
+        buffer.append('}');
+    }
+
+    private void appendJsonString(String text) {
+        buffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    buffer.append("\\\"");
+                    break;
+                case '\\':
+                    buffer.append("\\\\");
+                    break;
+                case '\n':
+                    buffer.append("\\n");
+                    break;
+                case '\r':
+                    buffer.append("\\r");
+                    break;
+                case '\t':
+                    buffer.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        buffer.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        buffer.append(c);
+                    }
+            }
+        }
+        buffer.append('"');
+    }
+}
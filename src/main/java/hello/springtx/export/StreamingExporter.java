@@ -0,0 +1,77 @@
+package hello.springtx.export;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Log, orders 테이블 내보내기
+ * getResultList() 는 전체 결과를 메모리에 올리므로, 여기서는 FORWARD_ONLY 커서로 fetchSize 만큼씩 읽으면서 바로 쓴다.
+ * 엔티티가 아닌 컬럼 값(Object[])만 조회하므로 영속성 컨텍스트에 쌓이는 것이 없고,
+ * fetchSize 행마다 clear() 해서 혹시 남은 것도 비운다. 테이블 크기와 관계없이 힙 사용량이 일정하다.
+ *
+ * 하나의 readOnly 트랜젝션에서 읽으므로 내보내는 동안 일관된 스냅샷을 본다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamingExporter {
+
+    private final EntityManager entityManager;
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * @return 내보낸 행 수
+     */
+    @Transactional(readOnly = true)
+    public long exportLogs(OutputStream out, ExportFormat format) {
+        return export("select l.Id, l.message, l.createdAt from Log l order by l.Id",
+                new RowWriter(out, format, "id", "message", "createdAt"));
+    }
+
+    /**
+     * @return 내보낸 행 수
+     */
+    @Transactional(readOnly = true)
+    public long exportOrders(OutputStream out, ExportFormat format) {
+        return export("select o.id, o.username, o.payStatus from Order o order by o.id",
+                new RowWriter(out, format, "id", "username", "payStatus"));
+    }
+
+    private long export(String jpql, RowWriter writer) {
+        long rows = 0;
+        ScrollableResults results = entityManager.createQuery(jpql)
+                .unwrap(Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            writer.writeHeader();
+            while (results.next()) {
+                writer.write(results.get());
+                if (++rows % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            results.close();
+        }
+        log.info("export 완료 rows={}", rows);
+        return rows;
+    }
+}
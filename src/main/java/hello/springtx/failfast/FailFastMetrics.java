@@ -0,0 +1,104 @@
+package hello.springtx.failfast;
+
+import hello.springtx.metrics.LatencyHistogram;
+import lombok.Getter;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 메소드(클래스.메소드) 별 fail-fast 기록
+ * executed : 트랜젝션 안에서 실제로 실행한 호출의 시간과 SQL 수
+ * skipped : rollback-only 트랜젝션이라 실행하지 않은 호출 수
+ * 절약한 시간/SQL 은 같은 메소드의 실행 평균 x skipped 로 추정한다.
+ *
+ * 조회 : snapshot() 또는 JMX (spring.jmx.enabled=true)
+ */
+@ManagedResource(objectName = "hello.springtx:type=FailFastMetrics")
+public class FailFastMetrics {
+
+    private final ConcurrentHashMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    public MethodMetrics method(String name) {
+        MethodMetrics metrics = methods.get(name);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(name, k -> new MethodMetrics());
+        }
+        return metrics;
+    }
+
+    public Map<String, MethodSnapshot> snapshot() {
+        Map<String, MethodSnapshot> result = new TreeMap<>();
+        methods.forEach((name, metrics) -> result.put(name, metrics.snapshot()));
+        return result;
+    }
+
+    @ManagedAttribute
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        snapshot().forEach((name, snapshot) -> sb.append(name).append(" ").append(snapshot).append('\n'));
+        return sb.toString();
+    }
+
+    @ManagedOperation
+    public void reset() {
+        methods.clear();
+    }
+
+    public static class MethodMetrics {
+        final LatencyHistogram executed = new LatencyHistogram();
+        final LongAdder statements = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+
+        void recordExecuted(long nanos, long sqlStatements) {
+            executed.record(nanos);
+            statements.add(sqlStatements);
+        }
+
+        void recordSkipped() {
+            skipped.increment();
+        }
+
+        MethodSnapshot snapshot() {
+            LatencyHistogram.Snapshot snapshot = executed.snapshot();
+            long executions = snapshot.getCount();
+            long skips = skipped.sum();
+            long sql = statements.sum();
+            long avoidedMicros = snapshot.getMeanMicros() * skips;
+            long avoidedStatements = executions == 0 ? 0 : Math.round((double) sql * skips / executions);
+            return new MethodSnapshot(executions, skips, snapshot, sql, avoidedMicros, avoidedStatements);
+        }
+    }
+
+    @Getter
+    public static class MethodSnapshot {
+        private final long executions;
+        private final long skipped;
+        private final LatencyHistogram.Snapshot executed;
+        private final long statements;
+        // 추정값 : 실행 평균 x skipped (실행 기록이 없으면 0)
+        private final long avoidedMicros;
+        private final long avoidedStatements;
+
+        MethodSnapshot(long executions, long skipped, LatencyHistogram.Snapshot executed, long statements,
+                       long avoidedMicros, long avoidedStatements) {
+            this.executions = executions;
+            this.skipped = skipped;
+            this.executed = executed;
+            this.statements = statements;
+            this.avoidedMicros = avoidedMicros;
+            this.avoidedStatements = avoidedStatements;
+        }
+
+        @Override
+        public String toString() {
+            return "executions=" + executions + " skipped=" + skipped + " executed=" + executed +
+                    " statements=" + statements + " avoidedMicros=" + avoidedMicros + " avoidedStatements=" + avoidedStatements;
+        }
+    }
+}
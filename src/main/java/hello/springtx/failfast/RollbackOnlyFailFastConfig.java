@@ -0,0 +1,63 @@
+package hello.springtx.failfast;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import java.lang.reflect.Method;
+
+/**
+ * tx.fail-fast.enabled=true 이면 @Repository 와 @Transactional 메소드 호출 전에
+ * 현재 트랜젝션의 rollback-only 여부를 확인한다.
+ * 트랜젝션 AOP 보다 먼저 실행되어야 하므로 가장 높은 우선순위로 등록한다.
+ * 메소드별 SQL 수를 세기 위해 하이버네이트 StatementInspector 로 SqlStatementCounter 를 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tx.fail-fast.enabled", havingValue = "true")
+public class RollbackOnlyFailFastConfig {
+
+    @Bean
+    public FailFastMetrics failFastMetrics() {
+        return new FailFastMetrics();
+    }
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+    }
+
+    @Bean
+    public RollbackOnlyFailFastInterceptor rollbackOnlyFailFastInterceptor(TransactionAttributeSource transactionAttributeSource,
+                                                                           FailFastMetrics failFastMetrics,
+                                                                           SqlStatementCounter sqlStatementCounter) {
+        return new RollbackOnlyFailFastInterceptor(transactionAttributeSource, failFastMetrics, sqlStatementCounter);
+    }
+
+    @Bean
+    public DefaultPointcutAdvisor rollbackOnlyFailFastAdvisor(RollbackOnlyFailFastInterceptor interceptor,
+                                                              TransactionAttributeSource transactionAttributeSource) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return AnnotatedElementUtils.hasAnnotation(targetClass, Repository.class)
+                        || transactionAttributeSource.getTransactionAttribute(method, targetClass) != null;
+            }
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
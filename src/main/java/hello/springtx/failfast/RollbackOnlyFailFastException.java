@@ -0,0 +1,14 @@
+package hello.springtx.failfast;
+
+import org.springframework.transaction.UnexpectedRollbackException;
+
+/**
+ * 이미 rollback-only 로 표시된 트랜젝션에 참여하려고 할 때 발생
+ * 커밋 시점의 UnexpectedRollbackException 을 호출 시점에 미리 던진다.
+ */
+public class RollbackOnlyFailFastException extends UnexpectedRollbackException {
+
+    public RollbackOnlyFailFastException(String method) {
+        super("트랜젝션이 이미 rollback-only 상태입니다. 이후 작업은 모두 롤백되므로 실행하지 않습니다. method=" + method);
+    }
+}
@@ -0,0 +1,116 @@
+package hello.springtx.failfast;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.transaction.support.ResourceHolderSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityTransaction;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 현재 트랜젝션이 rollback-only 이면 리포지토리/@Transactional 메소드를 실행하지 않고 바로 예외를 던진다.
+ *
+ * 내부 트랜젝션(REQUIRED 참여)에서 예외가 발생하면 물리 트랜젝션이 rollback-only 로 표시되지만
+ * 외부 트랜젝션은 계속 SQL 을 실행하고 커밋 시점에서야 UnexpectedRollbackException 으로 알게 된다.
+ * 어차피 롤백될 SQL 실행과 lock 보유 시간을 줄이기 위해 다음 호출 시점에 실패시킨다.
+ *
+ * rollback-only 는 트랜젝션 매니저가 스레드에 바인딩한 리소스(EntityManagerHolder, ConnectionHolder)에서 확인한다.
+ * 참여 트랜젝션의 롤백은 TransactionStatus 가 아닌 이 리소스에 표시되므로 @Transactional 과 TransactionTemplate 트랜젝션 모두 확인할 수 있다.
+ *
+ * 메소드별로 실행한 호출의 시간/SQL 수와 실행하지 않은 호출 수를 FailFastMetrics 에 기록한다.
+ *
+ * REQUIRES_NEW, NOT_SUPPORTED, NEVER 는 현재 트랜젝션과 독립적이므로 실행한다.
+ */
+@Slf4j
+public class RollbackOnlyFailFastInterceptor implements MethodInterceptor {
+
+    private final TransactionAttributeSource transactionAttributeSource;
+    private final FailFastMetrics metrics;
+    private final SqlStatementCounter sqlStatementCounter;
+
+    private final LongAdder failFasts = new LongAdder();
+
+    public RollbackOnlyFailFastInterceptor(TransactionAttributeSource transactionAttributeSource, FailFastMetrics metrics,
+                                           SqlStatementCounter sqlStatementCounter) {
+        this.transactionAttributeSource = transactionAttributeSource;
+        this.metrics = metrics;
+        this.sqlStatementCounter = sqlStatementCounter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!TransactionSynchronizationManager.isActualTransactionActive() || !joinsCurrentTransaction(invocation)) {
+            return invocation.proceed();
+        }
+        String method = methodName(invocation);
+        FailFastMetrics.MethodMetrics methodMetrics = metrics.method(method);
+        if (isRollbackOnly()) {
+            failFasts.increment();
+            methodMetrics.recordSkipped();
+            log.info("rollback-only 트랜젝션 fail-fast method={} savedCalls={}", method, failFasts.sum());
+            throw new RollbackOnlyFailFastException(method);
+        }
+        long start = System.nanoTime();
+        long statements = sqlStatementCounter.current();
+        try {
+            return invocation.proceed();
+        } finally {
+            methodMetrics.recordExecuted(System.nanoTime() - start, sqlStatementCounter.current() - statements);
+        }
+    }
+
+    private String methodName(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    /**
+     * 스레드에 바인딩된 트랜젝션 리소스 중 하나라도 rollback-only 이면 true
+     * JpaTransactionManager 는 참여 트랜젝션 롤백시 EntityTransaction 과 ConnectionHolder 에,
+     * DataSourceTransactionManager 는 ConnectionHolder 에 표시한다.
+     */
+    private boolean isRollbackOnly() {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof ResourceHolderSupport && ((ResourceHolderSupport) resource).isRollbackOnly()) {
+                return true;
+            }
+            if (resource instanceof EntityManagerHolder) {
+                EntityTransaction transaction = ((EntityManagerHolder) resource).getEntityManager().getTransaction();
+                if (transaction.isActive() && transaction.getRollbackOnly()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean joinsCurrentTransaction(MethodInvocation invocation) {
+        Object target = invocation.getThis();
+        Class<?> targetClass = target == null ? null : AopUtils.getTargetClass(target);
+        Method method = invocation.getMethod();
+        TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(method, targetClass);
+        if (attribute == null) {
+            // @Transactional 이 없는 리포지토리 메소드 : 현재 트랜젝션의 커넥션을 그대로 사용
+            return true;
+        }
+        int propagation = attribute.getPropagationBehavior();
+        return propagation != TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                && propagation != TransactionDefinition.PROPAGATION_NOT_SUPPORTED
+                && propagation != TransactionDefinition.PROPAGATION_NEVER;
+    }
+
+    /**
+     * fail-fast 로 실행하지 않은 호출 수 (절약한 작업량)
+     */
+    public long getFailFastCount() {
+        return failFasts.sum();
+    }
+}
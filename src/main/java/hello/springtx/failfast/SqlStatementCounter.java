@@ -0,0 +1,23 @@
+package hello.springtx.failfast;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 하이버네이트가 준비하는 SQL 수를 스레드별로 센다. (hibernate.session_factory.statement_inspector)
+ * RollbackOnlyFailFastInterceptor 가 메소드 호출 전후의 차이로 메소드별 SQL 수를 구한다.
+ * JdbcTemplate 등 하이버네이트를 거치지 않는 SQL 은 세지 않는다.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<long[]> counts = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        counts.get()[0]++;
+        return sql;
+    }
+
+    public long current() {
+        return counts.get()[0];
+    }
+}
@@ -0,0 +1,88 @@
+package hello.springtx.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AbstractOptimizer;
+import org.hibernate.id.enhanced.AccessCallback;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * pooled-lo 방식의 optimizer
+ * 시퀀스 값 v 를 받으면 v ~ v + incrementSize - 1 까지를 하나의 블록으로 사용한다.
+ *
+ * 하이버네이트 기본 PooledLoOptimizer 는 generate() 전체가 synchronized 이다.
+ * 여기서는 블록 안의 발급은 CAS(getAndIncrement) 로 처리하고,
+ * 블록이 소진되었을 때만 lock 을 잡고 시퀀스를 조회한다.
+ * synchronized 안에서 JDBC 를 호출하면 가상 스레드가 캐리어 스레드에 고정(pinning)되므로 ReentrantLock 을 사용한다.
+ */
+public class LockFreePooledLoOptimizer extends AbstractOptimizer {
+
+    private final AtomicReference<Block> current = new AtomicReference<>();
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile long lastSourceValue = -1;
+
+    // OptimizerFactory 가 (Class, int) 생성자로 생성한다.
+    public LockFreePooledLoOptimizer(Class returnClass, int incrementSize) {
+        super(returnClass, incrementSize);
+        if (incrementSize < 1) {
+            throw new IllegalArgumentException("increment size 는 1 이상이어야 합니다. incrementSize=" + incrementSize);
+        }
+    }
+
+    @Override
+    public Object generate(AccessCallback callback) {
+        while (true) {
+            Block block = current.get();
+            if (block != null) {
+                long value = block.next.getAndIncrement();
+                if (value < block.upperLimit) {
+                    return make(value);
+                }
+            }
+            refill(block, callback);
+        }
+    }
+
+    private void refill(Block exhausted, AccessCallback callback) {
+        refillLock.lock();
+        try {
+            // 다른 스레드가 이미 새 블록을 할당했으면 그대로 사용
+            if (current.get() != exhausted) {
+                return;
+            }
+            long lo = callback.getNextValue().makeValue().longValue();
+            lastSourceValue = lo;
+            current.set(new Block(lo, lo + getIncrementSize()));
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Object make(long value) {
+        return IdentifierGeneratorHelper.getIntegralDataTypeHolder(getReturnClass()).initialize(value).makeValue();
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return IdentifierGeneratorHelper.getIntegralDataTypeHolder(getReturnClass()).initialize(lastSourceValue);
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        // 시퀀스 DDL 도 increment by {incrementSize} 로 생성해야 블록이 겹치지 않는다.
+        return true;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long upperLimit;
+
+        private Block(long lo, long upperLimit) {
+            this.next = new AtomicLong(lo);
+            this.upperLimit = upperLimit;
+        }
+    }
+}
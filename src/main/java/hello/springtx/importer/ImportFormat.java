@@ -0,0 +1,9 @@
+package hello.springtx.importer;
+
+/**
+ * CSV : 한 줄에 한 회원, 첫번째 컬럼이 username (첫 줄이 username 이면 헤더로 보고 건너뜀)
+ * NDJSON : 한 줄에 JSON 객체 하나 {"username":"..."}
+ */
+public enum ImportFormat {
+    CSV, NDJSON
+}
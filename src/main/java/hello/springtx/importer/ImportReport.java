@@ -0,0 +1,30 @@
+package hello.springtx.importer;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 회원 일괄 등록 결과
+ */
+@Getter
+@ToString
+public class ImportReport {
+
+    // 이번 실행에서 저장한 행 수
+    private final long importedRows;
+    // 입력 처음부터 커밋된 행 수 (재시작시 skipRows 로 사용)
+    private final long committedOffset;
+    private final long commits;
+    private final long elapsedMillis;
+
+    public ImportReport(long importedRows, long committedOffset, long commits, long elapsedMillis) {
+        this.importedRows = importedRows;
+        this.committedOffset = committedOffset;
+        this.commits = commits;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? importedRows : importedRows * 1000.0 / elapsedMillis;
+    }
+}
@@ -0,0 +1,19 @@
+package hello.springtx.importer;
+
+/**
+ * 일괄 등록 중 실패
+ * 실패한 청크만 롤백되므로 committedOffset 을 skipRows 로 넘겨 다시 실행하면 이어서 등록한다.
+ */
+public class MemberImportException extends RuntimeException {
+
+    private final long committedOffset;
+
+    public MemberImportException(String message, long committedOffset, Throwable cause) {
+        super(message + " committedOffset=" + committedOffset, cause);
+        this.committedOffset = committedOffset;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+}
@@ -0,0 +1,102 @@
+package hello.springtx.importer;
+
+import hello.springtx.propagation.Member;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 회원 일괄 등록
+ * MemberRepository.save() 를 반복하면 영속성 컨텍스트가 계속 커지고 행마다 커밋하게 된다.
+ * 여기서는 입력을 한 행씩 읽어 StatelessSession (영속성 컨텍스트 없음) 으로 저장하고
+ * chunkSize 행마다 커밋하므로 입력 크기와 관계없이 메모리 사용량이 일정하다.
+ * StatelessSession.insert() 는 JDBC batch 를 쓰지 않고 호출 즉시 insert 를 실행한다. (Hibernate 5.6, hibernate.jdbc.batch_size 무시)
+ * 처리량 차이는 행마다 커밋하지 않는 것에서 나온다. (MemberImportBenchmark 로 save() 반복과 비교)
+ *
+ * 실패하면 진행 중인 청크만 롤백하고 MemberImportException.getCommittedOffset() 으로 커밋된 위치를 알려준다.
+ * 같은 입력을 skipRows = committedOffset 으로 다시 실행하면 이어서 등록한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberImporter {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${member.import.chunk-size:1000}")
+    private int chunkSize;
+
+    public ImportReport importMembers(InputStream in, ImportFormat format) {
+        return importMembers(in, format, 0);
+    }
+
+    public ImportReport importMembers(InputStream in, ImportFormat format, long skipRows) {
+        long startTime = System.currentTimeMillis();
+        long committedOffset = skipRows;
+        long imported = 0;
+        long commits = 0;
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        try (MemberRowReader reader = MemberRowReader.open(in, format)) {
+            StatelessSession session = sessionFactory.openStatelessSession();
+            Transaction tx = null;
+            int pending = 0;
+            try {
+                for (long skipped = 0; skipped < skipRows; skipped++) {
+                    if (reader.next() == null) {
+                        break;
+                    }
+                }
+
+                String username;
+                while ((username = reader.next()) != null) {
+                    if (tx == null) {
+                        tx = session.beginTransaction();
+                    }
+                    session.insert(new Member(username));
+                    if (++pending == chunkSize) {
+                        tx.commit();
+                        tx = null;
+                        committedOffset += pending;
+                        imported += pending;
+                        commits++;
+                        pending = 0;
+                        log.debug("member import commit offset={}", committedOffset);
+                    }
+                }
+                if (tx != null) {
+                    tx.commit();
+                    committedOffset += pending;
+                    imported += pending;
+                    commits++;
+                }
+            } catch (RuntimeException e) {
+                if (tx != null && tx.getStatus().canRollback()) {
+                    try {
+                        tx.rollback();
+                    } catch (RuntimeException rollbackException) {
+                        e.addSuppressed(rollbackException);
+                    }
+                }
+                throw new MemberImportException("member import 실패: " + e.getMessage(), committedOffset, e);
+            } finally {
+                session.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ImportReport report = new ImportReport(imported, committedOffset, commits, System.currentTimeMillis() - startTime);
+        log.info("member import 완료 {} rowsPerSecond={}", report, (long) report.getRowsPerSecond());
+        return report;
+    }
+}
@@ -0,0 +1,130 @@
+package hello.springtx.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 입력을 한 행씩 읽는다. (전체를 메모리에 올리지 않음)
+ */
+interface MemberRowReader extends Closeable {
+
+    /**
+     * @return 다음 행의 username, 끝이면 null
+     * @throws IllegalArgumentException 행에 username 이 없음
+     */
+    String next();
+
+    static MemberRowReader open(InputStream in, ImportFormat format) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return format == ImportFormat.CSV ? new CsvReader(reader) : new NdjsonReader(reader);
+    }
+
+    class CsvReader implements MemberRowReader {
+
+        private final BufferedReader reader;
+        private boolean first = true;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public String next() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    String username = firstColumn(line);
+                    if (first) {
+                        first = false;
+                        if ("username".equalsIgnoreCase(username)) {
+                            continue; // 헤더
+                        }
+                    }
+                    return username;
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 첫번째 컬럼만 읽는다. "..." 로 감싼 값은 "" 를 " 로 바꾼다.
+         */
+        static String firstColumn(String line) {
+            if (!line.startsWith("\"")) {
+                int comma = line.indexOf(',');
+                return (comma < 0 ? line : line.substring(0, comma)).trim();
+            }
+            StringBuilder value = new StringBuilder(line.length());
+            for (int i = 1; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                } else {
+                    value.append(c);
+                }
+            }
+            return value.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    class NdjsonReader implements MemberRowReader {
+
+        private static final ObjectMapper objectMapper = new ObjectMapper();
+
+        private final MappingIterator<JsonNode> iterator;
+
+        NdjsonReader(BufferedReader reader) {
+            try {
+                this.iterator = objectMapper.readerFor(JsonNode.class).readValues(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * username 이 없거나 문자열이 아닌 행은 건너뛰지 않고 실패한다. (입력의 끝으로 처리하지 않음)
+         */
+        @Override
+        public String next() {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            JsonNode row = iterator.next();
+            JsonNode username = row.get("username");
+            if (username == null || !username.isTextual()) {
+                throw new IllegalArgumentException("username 이 없거나 문자열이 아닙니다. line="
+                        + iterator.getCurrentLocation().getLineNr() + " row=" + row);
+            }
+            return username.asText();
+        }
+
+        @Override
+        public void close() throws IOException {
+            iterator.close();
+        }
+    }
+}
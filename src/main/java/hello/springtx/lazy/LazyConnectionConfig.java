@@ -0,0 +1,51 @@
+package hello.springtx.lazy;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * tx.lazy-connection.enabled=true 이면 DataSource 를 LazyConnectionMetricsDataSource 로 감싼다.
+ * JpaTransactionManager(하이버네이트), DataSourceTransactionManager 모두 이 DataSource 에서 커넥션을 가져온다.
+ * 이미 지연 커넥션을 사용하는 경우(datasource.routing.enabled)는 감싸지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tx.lazy-connection.enabled", havingValue = "true")
+public class LazyConnectionConfig {
+
+    @Bean
+    public static BeanPostProcessor lazyConnectionPostProcessor() {
+        return new LazyConnectionPostProcessor();
+    }
+
+    static class LazyConnectionPostProcessor implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && !isLazy((DataSource) bean)) {
+                return new LazyConnectionMetricsDataSource((DataSource) bean);
+            }
+            return bean;
+        }
+
+        private boolean isLazy(DataSource dataSource) {
+            try {
+                return dataSource.isWrapperFor(LazyConnectionDataSourceProxy.class);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        // 가장 바깥쪽 래퍼
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
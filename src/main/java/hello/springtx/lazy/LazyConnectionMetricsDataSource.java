@@ -0,0 +1,79 @@
+package hello.springtx.lazy;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜젝션 시작 시점에는 커넥션 프록시만 반환하고, 첫 SQL 실행 시점에 실제 커넥션을 가져온다.
+ * SQL 을 실행하지 않는 트랜젝션은 커넥션 풀을 사용하지 않고, begin/commit 도 DB 로 전송되지 않는다.
+ *
+ * logical : 트랜젝션 매니저/JPA 가 요청한 커넥션 수
+ * physical : 실제로 커넥션 풀에서 가져온 커넥션 수
+ * elided : logical - physical (커넥션 없이 끝난 트랜젝션 수)
+ */
+public class LazyConnectionMetricsDataSource extends LazyConnectionDataSourceProxy {
+
+    private final LongAdder logical = new LongAdder();
+    private final PhysicalCountingDataSource physical;
+
+    public LazyConnectionMetricsDataSource(DataSource targetDataSource) {
+        this(new PhysicalCountingDataSource(targetDataSource));
+    }
+
+    private LazyConnectionMetricsDataSource(PhysicalCountingDataSource physical) {
+        super(physical);
+        this.physical = physical;
+        // 기본 커넥션 설정(autoCommit, isolation) 확인용으로 가져온 커넥션은 제외
+        physical.count.reset();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        logical.increment();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        logical.increment();
+        return super.getConnection(username, password);
+    }
+
+    public long getLogicalConnectionCount() {
+        return logical.sum();
+    }
+
+    public long getPhysicalConnectionCount() {
+        return physical.count.sum();
+    }
+
+    public long getElidedConnectionCount() {
+        return logical.sum() - physical.count.sum();
+    }
+
+    private static class PhysicalCountingDataSource extends DelegatingDataSource {
+
+        private final LongAdder count = new LongAdder();
+
+        PhysicalCountingDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            count.increment();
+            return super.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            count.increment();
+            return super.getConnection(username, password);
+        }
+    }
+}
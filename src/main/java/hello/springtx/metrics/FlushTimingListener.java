@@ -0,0 +1,27 @@
+package hello.springtx.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * 하이버네이트 세션의 flush 시간을 진행중인 트랜젝션의 측정값에 더한다.
+ * 세션마다 하나씩 등록되고 세션은 한 스레드에서만 사용하므로 시작 시간을 필드에 둔다.
+ */
+class FlushTimingListener extends BaseSessionEventListener {
+
+    private final TransactionMetrics metrics;
+    private long flushStart;
+
+    FlushTimingListener(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void flushStart() {
+        flushStart = System.nanoTime();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        metrics.recordFlush(System.nanoTime() - flushStart);
+    }
+}
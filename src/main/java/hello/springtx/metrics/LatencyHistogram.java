@@ -0,0 +1,100 @@
+package hello.springtx.metrics;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * lock-free 지연시간 히스토그램 (나노초)
+ * 2의 거듭제곱 단위 버킷에 카운트만 증가시키므로 기록할 때 lock 과 객체 생성이 없다.
+ * 백분위 값은 버킷 상한값으로 근사한다. (최대 2배 오차)
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        buckets.incrementAndGet(bucket(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    // nanos 가 속하는 버킷 : [2^(i-1), 2^i)
+    private static int bucket(long nanos) {
+        return Math.min(BUCKETS - 1, BUCKETS - Long.numberOfLeadingZeros(nanos));
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long totalSum = sum.sum();
+        return new Snapshot(total,
+                total == 0 ? 0 : totalSum / total,
+                percentile(counts, total, 0.50),
+                percentile(counts, total, 0.99),
+                max.get());
+    }
+
+    private static long percentile(long[] counts, long total, double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * p);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return i == 0 ? 0 : 1L << Math.min(i, 62);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    @Getter
+    @ToString
+    public static class Snapshot {
+        private final long count;
+        private final long meanMicros;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long maxMicros;
+
+        Snapshot(long count, long meanNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+            this.count = count;
+            this.meanMicros = TimeUnit.NANOSECONDS.toMicros(meanNanos);
+            this.p50Micros = TimeUnit.NANOSECONDS.toMicros(p50Nanos);
+            this.p99Micros = TimeUnit.NANOSECONDS.toMicros(p99Nanos);
+            this.maxMicros = TimeUnit.NANOSECONDS.toMicros(maxNanos);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package hello.springtx.metrics;
+
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * TransactionMetrics 에 기록하는 JpaTransactionManager
+ * 프록시로 감싸지 않고 하위 클래스로 등록하므로 JpaTransactionManager 타입으로 주입받을 수 있다.
+ *
+ * AbstractPlatformTransactionManager 의 getTransaction/commit/rollback 은 final 이므로
+ * 물리 트랜젝션의 시작/커밋/롤백 훅(doBegin, doCommit, doRollback)에서 시간을 잰다.
+ * 참여 트랜젝션은 커넥션도 커밋도 없으므로 newTransactionStatus 에서 횟수만 센다.
+ *
+ * 트랜젝션이 새 EntityManager 를 만들면 하이버네이트 세션에 FlushTimingListener 를 등록해서 flush 시간을 잰다.
+ * 이미 바인딩된 EntityManager(open-in-view 등)를 사용하는 트랜젝션은 flush 시간을 기록하지 않는다.
+ */
+public class MetricsJpaTransactionManager extends JpaTransactionManager {
+
+    private final TransactionMetrics metrics;
+
+    public MetricsJpaTransactionManager(TransactionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected DefaultTransactionStatus newTransactionStatus(TransactionDefinition definition, Object transaction,
+                                                            boolean newTransaction, boolean newSynchronization,
+                                                            boolean debug, Object suspendedResources) {
+        if (!newTransaction && transaction != null) {
+            metrics.method(definition.getName()).joins.increment();
+        }
+        return super.newTransactionStatus(definition, transaction, newTransaction, newSynchronization, debug, suspendedResources);
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        TransactionMetrics.MethodMetrics method = metrics.method(definition.getName());
+        TransactionMetrics.SampleStack stack = metrics.samples();
+        TransactionMetrics.Sample sample = stack.push(method);
+        boolean newEntityManager = !TransactionSynchronizationManager.hasResource(obtainEntityManagerFactory());
+        long start = System.nanoTime();
+        try {
+            super.doBegin(transaction, definition);
+        } catch (RuntimeException | Error e) {
+            stack.pop();
+            throw e;
+        }
+        long now = System.nanoTime();
+        method.begin.record(now - start);
+        sample.transaction = transaction;
+        sample.bodyStart = now;
+        if (newEntityManager) {
+            registerFlushListener();
+        }
+    }
+
+    private void registerFlushListener() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+        if (holder != null) {
+            holder.getEntityManager().unwrap(Session.class).addEventListeners(new FlushTimingListener(metrics));
+        }
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        TransactionMetrics.Sample sample = current(status);
+        if (sample == null) {
+            super.doCommit(status);
+            return;
+        }
+        TransactionMetrics.MethodMetrics method = sample.metrics;
+        long start = System.nanoTime();
+        method.body.record(start - sample.bodyStart);
+        // 커밋 전 flush 시간이 이 Sample 에 더해지도록 커밋이 끝난 후에 스택에서 제거한다.
+        try {
+            super.doCommit(status);
+        } catch (RuntimeException | Error e) {
+            // 커밋 실패 : 트랜젝션 매니저가 이어서 doRollback 을 호출하지만 Sample 은 여기서 제거하므로 롤백으로 기록한다.
+            complete(sample, status);
+            method.rollback.record(System.nanoTime() - start);
+            method.rollbacks.increment();
+            throw e;
+        }
+        complete(sample, status);
+        method.commit.record(System.nanoTime() - start);
+        method.commits.increment();
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        TransactionMetrics.Sample sample = current(status);
+        if (sample == null) {
+            super.doRollback(status);
+            return;
+        }
+        TransactionMetrics.MethodMetrics method = sample.metrics;
+        long start = System.nanoTime();
+        method.body.record(start - sample.bodyStart);
+        try {
+            super.doRollback(status);
+        } finally {
+            complete(sample, status);
+            method.rollback.record(System.nanoTime() - start);
+            method.rollbacks.increment();
+        }
+    }
+
+    /**
+     * status 의 물리 트랜젝션이 스택 맨 위에 있으면 반환한다. (정상적인 사용이라면 항상 맨 위)
+     * 맨 위가 아니면 스택에서 제거만 하고 기록하지 않는다.
+     */
+    private TransactionMetrics.Sample current(DefaultTransactionStatus status) {
+        TransactionMetrics.SampleStack stack = metrics.samples();
+        TransactionMetrics.Sample sample = stack.peek();
+        if (sample != null && sample.transaction == status.getTransaction()) {
+            return sample;
+        }
+        stack.pop(status.getTransaction());
+        return null;
+    }
+
+    /**
+     * 커넥션 획득, flush 시간을 기록하고 스택에서 제거한다.
+     */
+    private void complete(TransactionMetrics.Sample sample, DefaultTransactionStatus status) {
+        TransactionMetrics.MethodMetrics method = sample.metrics;
+        if (sample.connectionNanos > 0) {
+            method.connection.record(sample.connectionNanos);
+        }
+        if (sample.flushNanos > 0) {
+            method.flush.record(sample.flushNanos);
+        }
+        metrics.samples().pop(status.getTransaction());
+    }
+}
@@ -0,0 +1,36 @@
+package hello.springtx.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 커넥션 획득 시간을 진행중인 트랜젝션의 측정값에 더한다.
+ */
+public class TimedDataSource extends DelegatingDataSource {
+
+    private final TransactionMetrics metrics;
+
+    public TimedDataSource(DataSource targetDataSource, TransactionMetrics metrics) {
+        super(targetDataSource);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        metrics.recordConnectionAcquire(System.nanoTime() - start);
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        metrics.recordConnectionAcquire(System.nanoTime() - start);
+        return connection;
+    }
+}
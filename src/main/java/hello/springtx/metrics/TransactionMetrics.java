@@ -0,0 +1,203 @@
+package hello.springtx.metrics;
+
+import lombok.Getter;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Transactional 메소드(트랜젝션 이름) 별 지연시간 히스토그램
+ * 물리 트랜젝션 (새로 시작한 트랜젝션, REQUIRES_NEW 포함)
+ *   begin : 트랜젝션 시작 시간 (커넥션 획득 포함)
+ *   connection : 트랜젝션 안에서 커넥션 획득 시간
+ *   body : 트랜젝션 시작 후 commit/rollback 까지 (비즈니스 로직)
+ *   flush : 하이버네이트 flush 시간 (트랜젝션 중간 flush, 커밋 전 flush 모두 포함)
+ *   commit, rollback : DB commit/rollback 시간 (커밋 전 flush 포함)
+ * 참여 트랜젝션 (REQUIRED 등으로 기존 트랜젝션에 참여) : joins 횟수만 센다. 시간은 물리 트랜젝션에 포함된다.
+ *
+ * 조회 : snapshot() 또는 JMX (spring.jmx.enabled=true)
+ */
+@ManagedResource(objectName = "hello.springtx:type=TransactionMetrics")
+public class TransactionMetrics {
+
+    static final String PROGRAMMATIC = "programmatic";
+
+    private final ConcurrentHashMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final ThreadLocal<SampleStack> samples = ThreadLocal.withInitial(SampleStack::new);
+
+    public MethodMetrics method(String name) {
+        String key = name == null ? PROGRAMMATIC : name;
+        MethodMetrics metrics = methods.get(key);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(key, k -> new MethodMetrics());
+        }
+        return metrics;
+    }
+
+    SampleStack samples() {
+        return samples.get();
+    }
+
+    /**
+     * TimedDataSource 에서 호출 : 진행중인 트랜젝션이 있으면 커넥션 획득 시간을 더한다.
+     */
+    void recordConnectionAcquire(long nanos) {
+        Sample sample = samples.get().peek();
+        if (sample != null) {
+            sample.connectionNanos += nanos;
+        }
+    }
+
+    /**
+     * FlushTimingListener 에서 호출 : 진행중인 트랜젝션이 있으면 flush 시간을 더한다.
+     */
+    void recordFlush(long nanos) {
+        Sample sample = samples.get().peek();
+        if (sample != null) {
+            sample.flushNanos += nanos;
+        }
+    }
+
+    public Map<String, MethodSnapshot> snapshot() {
+        Map<String, MethodSnapshot> result = new TreeMap<>();
+        methods.forEach((name, metrics) -> result.put(name, metrics.snapshot()));
+        return result;
+    }
+
+    @ManagedAttribute
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        snapshot().forEach((name, snapshot) -> sb.append(name).append(" ").append(snapshot).append('\n'));
+        return sb.toString();
+    }
+
+    @ManagedOperation
+    public void reset() {
+        methods.clear();
+    }
+
+    public static class MethodMetrics {
+        final LatencyHistogram begin = new LatencyHistogram();
+        final LatencyHistogram connection = new LatencyHistogram();
+        final LatencyHistogram body = new LatencyHistogram();
+        final LatencyHistogram flush = new LatencyHistogram();
+        final LatencyHistogram commit = new LatencyHistogram();
+        final LatencyHistogram rollback = new LatencyHistogram();
+        final LongAdder commits = new LongAdder();
+        final LongAdder rollbacks = new LongAdder();
+        final LongAdder joins = new LongAdder();
+
+        MethodSnapshot snapshot() {
+            return new MethodSnapshot(commits.sum(), rollbacks.sum(), joins.sum(), begin.snapshot(), connection.snapshot(),
+                    body.snapshot(), flush.snapshot(), commit.snapshot(), rollback.snapshot());
+        }
+    }
+
+    @Getter
+    public static class MethodSnapshot {
+        private final long commits;
+        private final long rollbacks;
+        private final long joins;
+        private final LatencyHistogram.Snapshot begin;
+        private final LatencyHistogram.Snapshot connection;
+        private final LatencyHistogram.Snapshot body;
+        private final LatencyHistogram.Snapshot flush;
+        private final LatencyHistogram.Snapshot commit;
+        private final LatencyHistogram.Snapshot rollback;
+
+        MethodSnapshot(long commits, long rollbacks, long joins, LatencyHistogram.Snapshot begin,
+                       LatencyHistogram.Snapshot connection, LatencyHistogram.Snapshot body, LatencyHistogram.Snapshot flush,
+                       LatencyHistogram.Snapshot commit, LatencyHistogram.Snapshot rollback) {
+            this.commits = commits;
+            this.rollbacks = rollbacks;
+            this.joins = joins;
+            this.begin = begin;
+            this.connection = connection;
+            this.body = body;
+            this.flush = flush;
+            this.commit = commit;
+            this.rollback = rollback;
+        }
+
+        @Override
+        public String toString() {
+            return "commits=" + commits + " rollbacks=" + rollbacks + " joins=" + joins +
+                    " begin=" + begin + " connection=" + connection + " body=" + body + " flush=" + flush +
+                    " commit=" + commit + " rollback=" + rollback;
+        }
+    }
+
+    /**
+     * 진행중인 물리 트랜젝션 1개의 측정값 (스레드별로 재사용)
+     */
+    static final class Sample {
+        MethodMetrics metrics;
+        // 트랜젝션 매니저의 트랜젝션 객체 (doBegin 과 doCommit/doRollback 에서 같은 객체)
+        Object transaction;
+        long bodyStart;
+        long connectionNanos;
+        long flushNanos;
+    }
+
+    /**
+     * 스레드별 물리 트랜젝션 스택 (REQUIRES_NEW 등 중첩 트랜젝션은 LIFO 로 완료된다)
+     * Sample 객체는 깊이별로 재사용한다.
+     */
+    static final class SampleStack {
+        private Sample[] samples = new Sample[4];
+        private int depth;
+
+        Sample push(MethodMetrics metrics) {
+            if (depth == samples.length) {
+                Sample[] grown = new Sample[depth * 2];
+                System.arraycopy(samples, 0, grown, 0, depth);
+                samples = grown;
+            }
+            Sample sample = samples[depth];
+            if (sample == null) {
+                sample = new Sample();
+                samples[depth] = sample;
+            }
+            depth++;
+            sample.metrics = metrics;
+            sample.transaction = null;
+            sample.connectionNanos = 0;
+            sample.flushNanos = 0;
+            return sample;
+        }
+
+        Sample peek() {
+            return depth == 0 ? null : samples[depth - 1];
+        }
+
+        void pop() {
+            depth--;
+            samples[depth].transaction = null;
+        }
+
+        /**
+         * transaction 에 해당하는 Sample 을 찾아서 스택에서 제거한다.
+         * 반환한 Sample 은 다음 push 전까지만 유효하다.
+         */
+        Sample pop(Object transaction) {
+            for (int i = depth - 1; i >= 0; i--) {
+                if (samples[i].transaction == transaction) {
+                    Sample found = samples[i];
+                    // 정상적인 사용이라면 항상 맨 위 (i == depth - 1)
+                    for (int j = i; j < depth - 1; j++) {
+                        samples[j] = samples[j + 1];
+                    }
+                    samples[depth - 1] = found;
+                    depth--;
+                    return found;
+                }
+            }
+            return null;
+        }
+    }
+}
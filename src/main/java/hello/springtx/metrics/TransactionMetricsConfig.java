@@ -0,0 +1,70 @@
+package hello.springtx.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * tx.metrics.enabled=true 이면
+ * 트랜젝션 매니저를 MetricsJpaTransactionManager 로 등록하고 DataSource 를 감싸서 TransactionMetrics 에 기록한다.
+ *
+ * 트랜젝션 매니저는 프록시가 아닌 JpaTransactionManager 하위 클래스이므로 JpaTransactionManager 타입 주입이 그대로 동작한다.
+ * 스프링 부트의 JpaTransactionManager 자동 등록은 트랜젝션 매니저 빈이 있으면 빠진다. (@ConditionalOnMissingBean)
+ */
+@Configuration
+@ConditionalOnProperty(name = "tx.metrics.enabled", havingValue = "true")
+public class TransactionMetricsConfig {
+
+    @Bean
+    public TransactionMetrics transactionMetrics() {
+        return new TransactionMetrics();
+    }
+
+    // 스프링 부트 자동 설정(JpaBaseConfiguration)과 같이 TransactionManagerCustomizers 를 적용한다.
+    @Bean
+    public JpaTransactionManager transactionManager(TransactionMetrics transactionMetrics,
+                                                    ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        MetricsJpaTransactionManager transactionManager = new MetricsJpaTransactionManager(transactionMetrics);
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    // BeanPostProcessor 는 다른 빈보다 먼저 생성되므로 static 으로 등록하고, TransactionMetrics 는 사용 시점에 조회한다.
+    @Bean
+    public static BeanPostProcessor transactionMetricsPostProcessor(ObjectProvider<TransactionMetrics> metrics) {
+        return new MetricsPostProcessor(metrics);
+    }
+
+    /**
+     * DataSource 래퍼 순서 (안쪽부터) : MonitoredDataSource -> TimedDataSource -> LazyConnectionDataSourceProxy
+     * 실제 커넥션 획득 시간을 측정하도록 지연 커넥션 프록시보다 안쪽에 위치한다.
+     */
+    static class MetricsPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<TransactionMetrics> metrics;
+
+        MetricsPostProcessor(ObjectProvider<TransactionMetrics> metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && !(bean instanceof TimedDataSource)) {
+                return new TimedDataSource((DataSource) bean, metrics.getObject());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 1;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package hello.springtx.nested;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+/**
+ * EntityManagerFactory 에 SavepointHibernateJpaDialect 를 등록한다.
+ * JpaTransactionManager 는 EntityManagerFactory 의 JpaDialect 를 사용하므로 NESTED 전파를 사용할 수 있게 된다.
+ *
+ * 애플리케이션 전체의 JpaDialect 를 바꾸므로 tx.nested.enabled=true 일 때만 등록한다.
+ * 등록하지 않으면 NESTED 전파(LogRepository.saveNested, MemberService.joinV3)는 NestedTransactionNotSupportedException 으로 실패한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tx.nested.enabled", havingValue = "true")
+public class NestedTransactionConfig {
+
+    @Bean
+    public static BeanPostProcessor savepointJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractEntityManagerFactoryBean) {
+                    ((AbstractEntityManagerFactoryBean) bean).setJpaDialect(new SavepointHibernateJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
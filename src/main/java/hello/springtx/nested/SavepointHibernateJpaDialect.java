@@ -0,0 +1,196 @@
+package hello.springtx.nested;
+
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.NestedTransactionNotSupportedException;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.lang.reflect.Field;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * JPA(하이버네이트) 에서 Propagation.NESTED 를 사용할 수 있도록 JDBC savepoint 를 지원하는 JpaDialect
+ *
+ * JpaTransactionManager 는 JpaDialect 의 트랜젝션 데이터가 SavepointManager 이면 savepoint 를 사용한다.
+ * 기본 HibernateJpaDialect 는 savepoint 를 지원하지 않아서 NESTED 를 사용하면 NestedTransactionNotSupportedException 이 발생한다.
+ *
+ * savepoint 생성 : 외부 범위의 변경사항을 flush 한 후 savepoint 생성, 이 시점의 영속 엔티티와 상태를 기억
+ * savepoint 롤백 : 내부 범위의 아직 실행되지 않은 insert/update/delete 는 flush 하지 않고 버린 후 savepoint 로 롤백
+ *                  (내부 범위가 flush 실패로 끝났으면 다시 flush 해도 같은 예외가 발생한다.)
+ *                  내부 범위에서 영속화/조회된 엔티티는 detach, 기존 엔티티는 변경된 것만 DB 상태로 refresh
+ *                  내부 범위의 flush 실패로 하이버네이트가 표시한 rollback-only 는 savepoint 롤백으로 취소되었으므로 해제
+ *
+ * 내부 범위가 일반 RuntimeException 으로 끝나면(LogRepository.saveNested 의 로그예외) 하이버네이트는 rollback-only 를 표시하지 않고
+ * TransactionInterceptor 도 savepoint 롤백만 하므로 해제할 것이 없다.
+ * 해제가 필요한 경우는 내부 범위의 flush 가 PersistenceException 으로 실패한 경우 뿐이다. 하이버네이트는 해제 API 를 제공하지 않으므로
+ * 리소스 로컬(JDBC) 트랜젝션 드라이버의 private 필드 rollbackOnly 를 되돌린다.
+ * 하이버네이트 업그레이드로 필드가 사라지면 조용히 동작이 바뀌지 않도록 생성 시점(애플리케이션 시작)에 실패한다.
+ */
+public class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+
+    static final String DRIVER_CONTROL_CLASS =
+            "org.hibernate.resource.transaction.backend.jdbc.internal.JdbcResourceLocalTransactionCoordinatorImpl$TransactionDriverControlImpl";
+
+    private final Field driverRollbackOnly;
+
+    public SavepointHibernateJpaDialect() {
+        this.driverRollbackOnly = findDriverRollbackOnly();
+    }
+
+    private static Field findDriverRollbackOnly() {
+        Class<?> driverClass;
+        try {
+            driverClass = ClassUtils.forName(DRIVER_CONTROL_CLASS, SavepointHibernateJpaDialect.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalStateException("하이버네이트 트랜젝션 드라이버를 찾을 수 없습니다. class=" + DRIVER_CONTROL_CLASS, e);
+        }
+        Field field = ReflectionUtils.findField(driverClass, "rollbackOnly", boolean.class);
+        if (field == null) {
+            throw new IllegalStateException("하이버네이트 트랜젝션 드라이버에 rollbackOnly 필드가 없습니다. class=" + DRIVER_CONTROL_CLASS);
+        }
+        ReflectionUtils.makeAccessible(field);
+        return field;
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        return new SavepointTransactionData(entityManager, transactionData);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof SavepointTransactionData) {
+            transactionData = ((SavepointTransactionData) transactionData).delegate;
+        }
+        super.cleanupTransaction(transactionData);
+    }
+
+    private final class SavepointTransactionData implements SavepointManager {
+
+        private final EntityManager entityManager;
+        private final Object delegate;
+
+        private SavepointTransactionData(EntityManager entityManager, Object delegate) {
+            this.entityManager = entityManager;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+            session.flush();
+            // flush 직후이므로 loadedState 가 DB 상태와 같다.
+            Map<Object, Object[]> managed = new IdentityHashMap<>();
+            for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+                managed.put(entry.getKey(), entry.getValue().getLoadedState());
+            }
+            boolean rollbackOnly = entityManager.getTransaction().getRollbackOnly();
+            Savepoint savepoint = session.doReturningWork(connection -> {
+                try {
+                    return connection.setSavepoint();
+                } catch (SQLException e) {
+                    throw new NestedTransactionNotSupportedException("JDBC savepoint 를 생성할 수 없습니다. " + e.getMessage());
+                }
+            });
+            return new JpaSavepoint(savepoint, managed, rollbackOnly);
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            JpaSavepoint jpaSavepoint = (JpaSavepoint) savepoint;
+            SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+            // savepoint 생성시 flush 했으므로 큐에 남은 작업은 모두 내부 범위의 작업이다.
+            session.getActionQueue().clear();
+            try {
+                session.doWork(connection -> connection.rollback(jpaSavepoint.savepoint));
+            } catch (RuntimeException e) {
+                throw new TransactionSystemException("savepoint 롤백 실패", e);
+            }
+            if (!jpaSavepoint.rollbackOnly) {
+                clearRollbackOnly(session);
+            }
+            for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContext().reentrantSafeEntityEntries()) {
+                Object entity = entry.getKey();
+                EntityEntry entityEntry = entry.getValue();
+                if (!jpaSavepoint.managed.containsKey(entity)
+                        || entityEntry.getStatus() == Status.DELETED || entityEntry.getStatus() == Status.GONE) {
+                    // 내부 범위에서 영속화/조회된 엔티티, 내부 범위에서 삭제한 엔티티
+                    session.detach(entity);
+                } else if (entityEntry.getStatus() == Status.MANAGED
+                        && changedAfterSavepoint(session, entity, entityEntry, jpaSavepoint.managed.get(entity))) {
+                    session.refresh(entity);
+                }
+            }
+        }
+
+        /**
+         * savepoint 이후 변경되었거나(아직 flush 전) 내부 범위에서 flush 된 엔티티인지 확인
+         */
+        private boolean changedAfterSavepoint(SessionImplementor session, Object entity, EntityEntry entry, Object[] savepointState) {
+            if (savepointState == null) {
+                // read-only 엔티티는 스냅샷이 없고 flush 대상도 아니다.
+                return false;
+            }
+            if (entry.getLoadedState() != savepointState) {
+                return true;
+            }
+            EntityPersister persister = entry.getPersister();
+            return persister.findDirty(persister.getPropertyValues(entity), savepointState, entity, session) != null;
+        }
+
+        /**
+         * 내부 범위의 flush 실패(ConstraintViolation 등)로 하이버네이트가 표시한 rollback-only 해제
+         * JTA 등 다른 트랜젝션 드라이버는 지원하지 않는다. 해제하지 못한 채 커밋하면 UnexpectedRollbackException 이 되므로 바로 실패한다.
+         */
+        private void clearRollbackOnly(SessionImplementor session) {
+            if (!entityManager.getTransaction().getRollbackOnly()) {
+                return;
+            }
+            Object driver = session.getTransactionCoordinator().getTransactionDriverControl();
+            if (!driverRollbackOnly.getDeclaringClass().isInstance(driver)) {
+                throw new TransactionSystemException("rollback-only 를 해제할 수 없습니다. driver=" + driver.getClass().getName());
+            }
+            ReflectionUtils.setField(driverRollbackOnly, driver, false);
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            JpaSavepoint jpaSavepoint = (JpaSavepoint) savepoint;
+            entityManager.unwrap(SessionImplementor.class).doWork(connection -> {
+                try {
+                    connection.releaseSavepoint(jpaSavepoint.savepoint);
+                } catch (SQLException e) {
+                    // savepoint 해제를 지원하지 않는 드라이버도 있다. 트랜젝션 종료시 함께 해제된다.
+                }
+            });
+        }
+    }
+
+    private static final class JpaSavepoint {
+        private final Savepoint savepoint;
+        // savepoint 생성 시점의 영속 엔티티 -> loadedState
+        private final Map<Object, Object[]> managed;
+        private final boolean rollbackOnly;
+
+        private JpaSavepoint(Savepoint savepoint, Map<Object, Object[]> managed, boolean rollbackOnly) {
+            this.savepoint = savepoint;
+            this.managed = managed;
+            this.rollbackOnly = rollbackOnly;
+        }
+    }
+}
@@ -1,24 +1,33 @@
 package hello.springtx.order;
 
+import hello.springtx.id.PooledSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 /**
  * Order Entity (JPA 사용)
  */
 @Entity
-@Table(name = "orders") // DB 예약어 order by 때문에 orders 지정함
+@Table(name = "orders", // DB 예약어 order by 때문에 orders 지정함
+        indexes = @Index(name = "idx_orders_pay_status_id", columnList = "payStatus, id")) // payStatus 조건 keyset 페이징
 @Getter
 @Setter
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_id_generator")
+    @GenericGenerator(name = "order_id_generator", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = "sequence_name", value = "orders_seq"),
+            @Parameter(name = "increment_size", value = "50")})
     private Long id;
 
     // 정상, 예외, 잔고부족
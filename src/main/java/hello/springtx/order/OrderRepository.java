@@ -1,9 +1,70 @@
 package hello.springtx.order;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 스프링 데이터 JPA 사용 인터페이스
  */
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    /**
+     * keyset 페이징 : id > lastId 인 주문을 id 순서로 limit 건 조회
+     * offset 을 사용하지 않으므로 뒤쪽 페이지도 첫 페이지와 비용이 같다. (첫 페이지는 lastId = 0)
+     */
+    default List<Order> findPageAfter(long lastId, int limit) {
+        return findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * payStatus 조건 keyset 페이징 (idx_orders_pay_status_id)
+     */
+    default List<Order> findPageAfter(String payStatus, long lastId, int limit) {
+        return findByPayStatusAndIdGreaterThanOrderByIdAsc(payStatus, lastId, PageRequest.of(0, limit));
+    }
+
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long lastId, Pageable pageable);
+
+    List<Order> findByPayStatusAndIdGreaterThanOrderByIdAsc(String payStatus, Long lastId, Pageable pageable);
+
+    @Query("select min(o.id) from Order o where o.payStatus = :payStatus")
+    Long findMinIdByPayStatus(@Param("payStatus") String payStatus);
+
+    @Query("select max(o.id) from Order o where o.payStatus = :payStatus")
+    Long findMaxIdByPayStatus(@Param("payStatus") String payStatus);
+
+    /**
+     * (after, to] 범위의 주문 id 를 id 순서로 조회 (엔티티를 로딩하지 않음)
+     */
+    @Query("select o.id from Order o where o.payStatus = :payStatus and o.id > :after and o.id <= :to order by o.id")
+    List<Long> findIdsByPayStatusInRange(@Param("payStatus") String payStatus,
+                                         @Param("after") long after, @Param("to") long to, Pageable pageable);
+
+    /**
+     * ids 중 현재 상태가 payStatus 인 주문의 id, username 조회 (엔티티를 로딩하지 않음)
+     */
+    @Query("select o.id as id, o.username as username from Order o where o.id in :ids and o.payStatus = :payStatus")
+    List<OrderUsername> findUsernamesByIdInAndPayStatus(@Param("ids") Collection<Long> ids,
+                                                         @Param("payStatus") String payStatus);
+
+    /**
+     * 결제 상태 일괄 변경 (update 1번)
+     * 현재 상태가 from 인 주문만 변경하므로 그 사이 다른 트랜젝션이 바꾼 주문은 건드리지 않는다.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Order o set o.payStatus = :to where o.id in :ids and o.payStatus = :from")
+    int updatePayStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
+
+    interface OrderUsername {
+        Long getId();
+
+        String getUsername();
+    }
 }
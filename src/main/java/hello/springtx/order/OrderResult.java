@@ -0,0 +1,42 @@
+package hello.springtx.order;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 주문 1건의 처리 결과
+ */
+@Getter
+@ToString
+public class OrderResult {
+
+    public enum Status {
+        COMPLETED,   // 정상 : payStatus 완료, 커밋
+        PENDING,     // 잔고부족 : payStatus 대기, 커밋
+        ROLLED_BACK  // 예외 : 롤백
+    }
+
+    private final Long orderId;
+    private final String username;
+    private final Status status;
+    private final String message;
+
+    private OrderResult(Long orderId, String username, Status status, String message) {
+        this.orderId = orderId;
+        this.username = username;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static OrderResult completed(Order order) {
+        return new OrderResult(order.getId(), order.getUsername(), Status.COMPLETED, null);
+    }
+
+    public static OrderResult pending(Order order, String message) {
+        return new OrderResult(order.getId(), order.getUsername(), Status.PENDING, message);
+    }
+
+    public static OrderResult rolledBack(Order order, String message) {
+        return new OrderResult(null, order.getUsername(), Status.ROLLED_BACK, message);
+    }
+}
@@ -1,9 +1,16 @@
 package hello.springtx.order;
 
+import hello.springtx.outbox.OutboxEvent;
+import hello.springtx.outbox.OutboxWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -11,27 +18,128 @@ import org.springframework.transaction.annotation.Transactional;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    // orderAll() 에서 하나의 트랜젝션으로 묶는 주문 수
+    @Value("${order.batch.chunk-size:100}")
+    private int chunkSize;
+
+    private static final String NOT_ENOUGH_MONEY = "잔고가 부족합니다";
 
     // JPA 는 트랜젝션 commit 시점에 Order 데이터를 DB 에 반영한다.
+    // 결제 이벤트(outbox)도 같은 트랜젝션에서 저장하므로 주문과 함께 커밋/롤백된다. (outbox.relay.enabled=true)
     @Transactional
     public void order(Order order) throws NotEnoughMoneyException {
         log.info("order 호출");
         orderRepository.save(order);
 
         log.info("결제 프로세스 진입");
+        OrderResult.Status status = applyPayment(order);
+        outboxWriter.write(order);
+        if (status == OrderResult.Status.PENDING) {
+            throw new NotEnoughMoneyException(NOT_ENOUGH_MONEY);
+        }
+        log.info("결제 프로세스 완료");
+    }
+
+    /**
+     * username 에 따른 결제 규칙 (order(), orderAll() 공통)
+     * 예외 : RuntimeException("시스템 예외") -> 호출한 트랜젝션 롤백
+     * 잔고부족 : payStatus 대기 -> PENDING
+     * 그 외 : payStatus 완료 -> COMPLETED
+     */
+    private OrderResult.Status applyPayment(Order order) {
         if (order.getUsername().equals("예외")) {
             log.info("시스템 예외 발생");
             throw new RuntimeException("시스템 예외");
         } else if (order.getUsername().equals("잔고부족")) {
             log.info("잔고 부족 비즈니스 예외 발생");
             order.setPayStatus("대기");
-            throw new NotEnoughMoneyException("잔고가 부족합니다");
+            return OrderResult.Status.PENDING;
         } else {
             // 정상 승인
             log.info("정상 승인");
             order.setPayStatus("완료");
+            return OrderResult.Status.COMPLETED;
         }
-        log.info("결제 프로세스 완료");
+    }
+
+    /**
+     * 주문 일괄 처리
+     * chunkSize 단위로 하나의 트랜젝션을 사용하고, insert 는 JDBC batch 로 한번에 전송한다.
+     * 주문별 처리 규칙은 order() 와 같다. (applyPayment)
+     * 예외 : 해당 주문만 저장하지 않음 (롤백)
+     * 잔고부족 : payStatus 대기 상태로 커밋
+     * 그 외 : payStatus 완료 상태로 커밋
+     * 커밋되는 주문은 같은 트랜젝션에서 결제 이벤트(outbox)를 저장한다.
+     * chunk 트랜젝션이 실패하면 chunk 의 주문은 모두 ROLLED_BACK 이고, id 와 payStatus 를 호출 전 값으로 되돌린다.
+     * (같은 Order 객체로 다시 호출하면 새 주문으로 저장된다.)
+     */
+    public List<OrderResult> orderAll(List<Order> orders) {
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        for (int from = 0; from < orders.size(); from += chunkSize) {
+            List<Order> chunk = orders.subList(from, Math.min(from + chunkSize, orders.size()));
+            results.addAll(orderChunk(chunk));
+        }
+        return results;
+    }
+
+    private List<OrderResult> orderChunk(List<Order> chunk) {
+        List<Order> accepted = new ArrayList<>(chunk.size());
+        // applyPayment 결과, 예외는 null
+        OrderResult.Status[] statuses = new OrderResult.Status[chunk.size()];
+        String[] messages = new String[chunk.size()];
+        String[] previousPayStatus = new String[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            Order order = chunk.get(i);
+            previousPayStatus[i] = order.getPayStatus();
+            try {
+                statuses[i] = applyPayment(order);
+                accepted.add(order);
+            } catch (RuntimeException e) {
+                messages[i] = e.getMessage();
+            }
+        }
+
+        try {
+            // 내부 호출이므로 @Transactional 대신 TransactionTemplate 으로 트랜젝션을 건다.
+            transactionTemplate.executeWithoutResult(status -> {
+                orderRepository.saveAll(accepted);
+                if (outboxWriter.isEnabled()) {
+                    List<OutboxEvent> events = new ArrayList<>(accepted.size());
+                    for (Order order : accepted) {
+                        events.add(OutboxEvent.paymentOf(order));
+                    }
+                    outboxWriter.writeAll(events);
+                }
+                orderRepository.flush();
+            });
+        } catch (RuntimeException e) {
+            log.info("chunk 저장 실패, chunk 전체 롤백 size={}", chunk.size(), e);
+            List<OrderResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Order order = chunk.get(i);
+                // 롤백되었으므로 persist 시 할당된 id 와 applyPayment 가 바꾼 payStatus 를 되돌린다.
+                order.setId(null);
+                order.setPayStatus(previousPayStatus[i]);
+                results.add(OrderResult.rolledBack(order, e.getMessage()));
+            }
+            return results;
+        }
+
+        List<OrderResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Order order = chunk.get(i);
+            if (statuses[i] == null) {
+                results.add(OrderResult.rolledBack(order, messages[i]));
+            } else if (statuses[i] == OrderResult.Status.PENDING) {
+                results.add(OrderResult.pending(order, NOT_ENOUGH_MONEY));
+            } else {
+                results.add(OrderResult.completed(order));
+            }
+        }
+        return results;
     }
 
 }
@@ -0,0 +1,33 @@
+package hello.springtx.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 메모리에 이벤트를 쌓아두는 OutboxSink (테스트, 로컬 실행용)
+ * 실제 브로커를 사용할 때는 다른 OutboxSink 빈을 @Primary 로 등록한다.
+ */
+@Slf4j
+@Component
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final ConcurrentLinkedQueue<OutboxEvent> received = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void send(List<OutboxEvent> events) {
+        log.debug("outbox 이벤트 전송 size={}", events.size());
+        received.addAll(events);
+    }
+
+    public List<OutboxEvent> getReceived() {
+        return new ArrayList<>(received);
+    }
+
+    public void clear() {
+        received.clear();
+    }
+}
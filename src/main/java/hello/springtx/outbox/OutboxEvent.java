@@ -0,0 +1,71 @@
+package hello.springtx.outbox;
+
+import hello.springtx.id.PooledSequenceGenerator;
+import hello.springtx.order.Order;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 결제 이벤트 outbox
+ * Order 와 같은 트랜젝션에서 저장하므로 주문이 커밋되면 이벤트도 반드시 남고, 롤백되면 함께 사라진다.
+ * OutboxRelay 는 orders 테이블이 아닌 이 테이블만 조회/수정하므로 주문 처리와 락 경합이 없다.
+ */
+@Entity
+@Table(name = "outbox_event",
+        indexes = @Index(name = "idx_outbox_delivered_id", columnList = "deliveredAt, id")) // 미전송 keyset 조회
+@Getter
+@Setter
+@ToString
+public class OutboxEvent {
+
+    public static final String PAYMENT_COMPLETED = "ORDER_PAYMENT_COMPLETED";
+    public static final String PAYMENT_PENDING = "ORDER_PAYMENT_PENDING";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_id_generator")
+    @GenericGenerator(name = "outbox_id_generator", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = "sequence_name", value = "outbox_seq"),
+            @Parameter(name = "increment_size", value = "50")})
+    private Long id;
+
+    private String eventType;
+    private Long orderId;
+    private String username;
+    private String payStatus;
+    private LocalDateTime createdAt;
+
+    // null 이면 미전송
+    private LocalDateTime deliveredAt;
+
+    /**
+     * payStatus 에 따라 완료 / 대기 이벤트 생성
+     * order 는 영속 상태여야 한다. (id 할당)
+     */
+    public static OutboxEvent paymentOf(Order order) {
+        return paymentOf(order.getId(), order.getUsername(), order.getPayStatus());
+    }
+
+    /**
+     * 엔티티를 로딩하지 않고 변경한 주문의 이벤트 생성 (벌크 update)
+     */
+    public static OutboxEvent paymentOf(Long orderId, String username, String payStatus) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType("대기".equals(payStatus) ? PAYMENT_PENDING : PAYMENT_COMPLETED);
+        event.setOrderId(orderId);
+        event.setUsername(username);
+        event.setPayStatus(payStatus);
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,139 @@
+package hello.springtx.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 미전송 outbox 이벤트를 batchSize 단위로 읽어 OutboxSink 로 전송하고 전송 완료를 일괄 표시한다.
+ *
+ * 1. 조회 : deliveredAt is null and id > cursor order by id (keyset, 짧은 읽기 트랜젝션)
+ * 2. 전송 : 트랜젝션 밖에서 sink 호출 (전송 중 커넥션을 잡고 있지 않음)
+ * 3. 표시 : update ... where id in (...) 1번
+ *
+ * cursor 는 relay() 호출 사이에 유지하므로 매번 처음부터 다시 읽지 않는다.
+ * pooled 시퀀스는 커밋 순서와 id 순서가 다를 수 있어 cursor 보다 작은 id 가 늦게 커밋될 수 있으므로
+ * fullScanEvery 번째 호출마다 0 부터 다시 조회한다. (그 사이 늦게 커밋된 이벤트는 최대 fullScanEvery 번 지연)
+ * 같은 호출에서 전송 완료 후 deliveredRetentionMs 가 지난 이벤트를 삭제해 테이블이 계속 커지지 않게 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.full-scan-every:100}")
+    private int fullScanEvery = 100;
+
+    @Value("${outbox.relay.delivered-retention-ms:3600000}")
+    private long deliveredRetentionMs = 3600000;
+
+    // running 락을 잡은 스레드만 읽고 쓴다.
+    private long cursor;
+    private long runs;
+
+    private final ReentrantLock running = new ReentrantLock();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    /**
+     * 미전송 이벤트를 모두 전송한다. 다른 스레드가 실행 중이면 바로 0 을 반환한다.
+     * @return 이번 호출에서 전송 완료 표시한 이벤트 수
+     */
+    public int relay() {
+        if (!running.tryLock()) {
+            return 0;
+        }
+        try {
+            boolean fullScan = ++runs % Math.max(fullScanEvery, 1) == 0;
+            if (fullScan) {
+                purgeDelivered();
+            }
+            int total = 0;
+            long from = fullScan ? 0 : cursor;
+            while (true) {
+                List<OutboxEvent> batch = findBatch(from);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    outboxSink.send(batch);
+                } catch (RuntimeException e) {
+                    // 전송 실패한 배치는 표시하지 않고 다음 relay() 에서 다시 전송한다.
+                    sendFailures.increment();
+                    log.warn("outbox 전송 실패 size={}", batch.size(), e);
+                    break;
+                }
+                total += markDelivered(batch);
+                from = batch.get(batch.size() - 1).getId();
+                cursor = Math.max(cursor, from);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            delivered.add(total);
+            return total;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /**
+     * 전송 완료 후 보관 기간이 지난 이벤트를 삭제한다. (delete 1번)
+     * @return 삭제한 이벤트 수
+     */
+    public int purgeDelivered() {
+        if (deliveredRetentionMs < 0) {
+            return 0;
+        }
+        LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(deliveredRetentionMs));
+        Integer deleted = transactionTemplate.execute(status -> outboxRepository.deleteDeliveredBefore(before));
+        int count = deleted == null ? 0 : deleted;
+        purged.add(count);
+        return count;
+    }
+
+    private List<OutboxEvent> findBatch(long from) {
+        return transactionTemplate.execute(status ->
+                outboxRepository.findUndeliveredAfter(from, PageRequest.of(0, batchSize)));
+    }
+
+    private int markDelivered(List<OutboxEvent> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            ids.add(event.getId());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status -> outboxRepository.markDelivered(ids, now));
+        return updated == null ? 0 : updated;
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getSendFailureCount() {
+        return sendFailures.sum();
+    }
+
+    public long getPurgedCount() {
+        return purged.sum();
+    }
+}
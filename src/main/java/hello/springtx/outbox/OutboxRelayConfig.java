@@ -0,0 +1,25 @@
+package hello.springtx.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * outbox.relay.enabled=true 이면 outbox.relay.interval-ms 마다 OutboxRelay.relay() 실행
+ * 테스트에서는 relay() 를 직접 호출한다.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.relay.enabled", havingValue = "true")
+public class OutboxRelayConfig {
+
+    private final OutboxRelay outboxRelay;
+
+    @Scheduled(initialDelayString = "${outbox.relay.interval-ms:100}", fixedDelayString = "${outbox.relay.interval-ms:100}")
+    public void relay() {
+        outboxRelay.relay();
+    }
+}
@@ -0,0 +1,38 @@
+package hello.springtx.outbox;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * keyset 페이징 : offset 없이 마지막으로 읽은 id 이후부터 조회 (idx_outbox_delivered_id 사용)
+     */
+    @Query("select e from OutboxEvent e where e.deliveredAt is null and e.id > :cursor order by e.id")
+    List<OutboxEvent> findUndeliveredAfter(@Param("cursor") long cursor, Pageable pageable);
+
+    /**
+     * 전송 완료 일괄 표시 (update 1번)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update OutboxEvent e set e.deliveredAt = :deliveredAt where e.id in :ids")
+    int markDelivered(@Param("ids") Collection<Long> ids, @Param("deliveredAt") LocalDateTime deliveredAt);
+
+    /**
+     * 전송 완료 후 보관 기간이 지난 이벤트 삭제 (idx_outbox_delivered_id 범위 조회)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from OutboxEvent e where e.deliveredAt < :before")
+    int deleteDeliveredBefore(@Param("before") LocalDateTime before);
+
+    long countByDeliveredAtIsNull();
+
+    long countByDeliveredAtIsNotNull();
+}
@@ -0,0 +1,13 @@
+package hello.springtx.outbox;
+
+import java.util.List;
+
+/**
+ * outbox 이벤트를 외부 시스템(메시지 브로커 등)으로 전송한다.
+ * 예외 없이 반환하면 전송 성공으로 보고 전송 완료 표시를 한다.
+ * 전송 완료 표시 전에 장애가 나면 다시 전송될 수 있으므로 (at-least-once) 수신측은 id 로 중복을 걸러야 한다.
+ */
+public interface OutboxSink {
+
+    void send(List<OutboxEvent> events);
+}
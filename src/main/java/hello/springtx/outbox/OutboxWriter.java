@@ -0,0 +1,41 @@
+package hello.springtx.outbox;
+
+import hello.springtx.order.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 주문 결제 이벤트를 outbox 에 저장한다. (호출한 트랜젝션에 참여)
+ * outbox.relay.enabled=false 이면 OutboxRelay 가 읽지 않으므로 저장하지 않는다. (outbox_event 가 쌓이지 않음)
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final OutboxRepository outboxRepository;
+
+    @Value("${outbox.relay.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 이벤트를 만들기 전에 확인한다. (벌크 처리에서 이벤트 목록을 만들지 않도록)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void write(Order order) {
+        if (enabled) {
+            outboxRepository.save(OutboxEvent.paymentOf(order));
+        }
+    }
+
+    public void writeAll(List<OutboxEvent> events) {
+        if (enabled && !events.isEmpty()) {
+            outboxRepository.saveAll(events);
+        }
+    }
+}
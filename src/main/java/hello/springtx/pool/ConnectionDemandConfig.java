@@ -0,0 +1,57 @@
+package hello.springtx.pool;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * pool.monitor.enabled=true 이면 DataSource 를 MonitoredDataSource 로 감싼다.
+ * 풀 크기는 HikariDataSource 의 maximumPoolSize, 아니면 pool.monitor.pool-size 를 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "pool.monitor.enabled", havingValue = "true")
+public class ConnectionDemandConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionDemandPostProcessor(Environment environment) {
+        return new OrderedPostProcessor(environment);
+    }
+
+    /**
+     * 다른 DataSource 래퍼(TimedDataSource, LazyConnectionDataSourceProxy)보다 먼저 감싸서 실제 커넥션 풀 바로 위에 위치한다.
+     */
+    static class OrderedPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+
+        OrderedPostProcessor(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource && !(bean instanceof MonitoredDataSource)) {
+                DataSource dataSource = (DataSource) bean;
+                ConnectionDemandMonitor.Mode mode = environment.getProperty("pool.monitor.mode",
+                        ConnectionDemandMonitor.Mode.class, ConnectionDemandMonitor.Mode.WARN);
+                return new MonitoredDataSource(dataSource, new ConnectionDemandMonitor(poolSize(dataSource), mode));
+            }
+            return bean;
+        }
+
+        private int poolSize(DataSource dataSource) {
+            return ConnectionPoolSize.of(dataSource,
+                    environment.getProperty("pool.monitor.pool-size", Integer.class, ConnectionPoolSize.DEFAULT));
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE - 2;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package hello.springtx.pool;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 스레드별 커넥션 보유 수(= 물리 트랜젝션 중첩 깊이)를 추적한다.
+ *
+ * REQUIRES_NEW 는 외부 트랜젝션의 커넥션을 보유한 채로 커넥션을 하나 더 요청한다.
+ * 커넥션 풀이 모두 사용중이고, 커넥션을 보유한 모든 스레드가 추가 커넥션을 기다리고 있으면
+ * 아무도 커넥션을 반납하지 않으므로 타임아웃까지 멈춘다. (교착상태)
+ *
+ * mode
+ * WARN : 경고 로그만 남김
+ * FAIL : 교착상태가 확정되면 타임아웃을 기다리지 않고 바로 예외 발생
+ *
+ * 최소 풀 크기 권장값 : 동시 스레드 수 * (최대 중첩 깊이 - 1) + 1
+ */
+@Slf4j
+public class ConnectionDemandMonitor {
+
+    public enum Mode {
+        WARN, FAIL
+    }
+
+    private final int poolSize;
+    private final Mode mode;
+
+    // 아래 상태는 lock 안에서 함께 읽고 쓴다. (교착상태 판단은 세 값이 같은 시점이어야 한다.)
+    // 커넥션은 획득한 스레드(owner) 기준으로 집계하므로 다른 스레드에서 반납해도 owner 의 보유 수가 줄어든다.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Thread, Integer> holdsByThread = new HashMap<>();
+    private int connectionsHeld;
+    private int waitingHolders;
+
+    private final LongAccumulator peakThreadsHolding = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxNesting = new LongAccumulator(Math::max, 0);
+    private final AtomicLong warnedDemand = new AtomicLong();
+    private final AtomicLong deadlocks = new AtomicLong();
+
+    public ConnectionDemandMonitor(int poolSize, Mode mode) {
+        this.poolSize = poolSize;
+        this.mode = mode;
+    }
+
+    /**
+     * 커넥션 요청 전 호출 : owner 스레드가 보유한 커넥션 수를 반환한다.
+     */
+    int beforeAcquire(Thread owner) throws SQLException {
+        int held;
+        boolean deadlock;
+        boolean exhausted;
+        lock.lock();
+        try {
+            held = holdsByThread.getOrDefault(owner, 0);
+            if (held == 0) {
+                return 0;
+            }
+            waitingHolders++;
+            exhausted = connectionsHeld >= poolSize;
+            deadlock = exhausted && waitingHolders >= holdsByThread.size();
+            if (deadlock && mode == Mode.FAIL) {
+                waitingHolders--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (deadlock) {
+            deadlocks.incrementAndGet();
+            if (mode == Mode.FAIL) {
+                throw new NestedConnectionDeadlockException(poolSize, held, getRecommendedMinimumPoolSize());
+            }
+            log.warn("커넥션 교착상태 : 커넥션을 보유한 모든 스레드가 추가 커넥션을 기다립니다. poolSize={} held={}",
+                    poolSize, held);
+        } else if (exhausted) {
+            log.warn("커넥션 풀 고갈 : 커넥션을 보유한 채로 추가 커넥션을 기다립니다. poolSize={} held={}", poolSize, held);
+        }
+        return held;
+    }
+
+    void acquired(Thread owner, int held) {
+        int threadsHolding;
+        lock.lock();
+        try {
+            if (held > 0) {
+                waitingHolders--;
+            }
+            connectionsHeld++;
+            holdsByThread.merge(owner, 1, Integer::sum);
+            threadsHolding = holdsByThread.size();
+        } finally {
+            lock.unlock();
+        }
+        peakThreadsHolding.accumulate(threadsHolding);
+        maxNesting.accumulate(held + 1);
+        checkWorstCaseDemand();
+    }
+
+    void acquireFailed(int held) {
+        if (held == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            waitingHolders--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * owner 가 획득한 커넥션 반납 (반납하는 스레드는 owner 가 아니어도 된다.)
+     */
+    void released(Thread owner) {
+        lock.lock();
+        try {
+            connectionsHeld--;
+            holdsByThread.computeIfPresent(owner, (thread, held) -> held == 1 ? null : held - 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkWorstCaseDemand() {
+        long demand = getWorstCaseDemand();
+        long warned = warnedDemand.get();
+        if (demand > poolSize && demand > warned && warnedDemand.compareAndSet(warned, demand)) {
+            log.warn("최악의 경우 필요한 커넥션 수가 풀 크기보다 큽니다. demand={} poolSize={} recommendedMinimumPoolSize={}",
+                    demand, poolSize, getRecommendedMinimumPoolSize());
+        }
+    }
+
+    /**
+     * 관측된 최대 동시 스레드 수가 모두 최대 중첩 깊이까지 커넥션을 요청하는 경우
+     */
+    public long getWorstCaseDemand() {
+        return peakThreadsHolding.get() * maxNesting.get();
+    }
+
+    public long getRecommendedMinimumPoolSize() {
+        return peakThreadsHolding.get() * (Math.max(maxNesting.get(), 1) - 1) + 1;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getConnectionsHeld() {
+        lock.lock();
+        try {
+            return connectionsHeld;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getThreadsHolding() {
+        lock.lock();
+        try {
+            return holdsByThread.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxNesting() {
+        return maxNesting.get();
+    }
+
+    public long getPeakThreadsHolding() {
+        return peakThreadsHolding.get();
+    }
+
+    public long getDeadlockCount() {
+        return deadlocks.get();
+    }
+}
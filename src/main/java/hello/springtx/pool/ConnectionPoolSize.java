@@ -0,0 +1,37 @@
+package hello.springtx.pool;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * DataSource 의 커넥션 풀 크기 (HikariDataSource 의 maximumPoolSize)
+ * MonitoredDataSource, TimedDataSource 등 래퍼로 감싸도 unwrap 으로 실제 풀을 찾는다.
+ */
+public final class ConnectionPoolSize {
+
+    // HikariCP 기본 maximumPoolSize
+    public static final int DEFAULT = 10;
+
+    private ConnectionPoolSize() {
+    }
+
+    /**
+     * @return HikariDataSource 가 아니거나 확인할 수 없으면 fallback
+     */
+    public static int of(DataSource dataSource, int fallback) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            // fallback 사용
+        }
+        return fallback;
+    }
+
+    public static int of(DataSource dataSource) {
+        return of(dataSource, DEFAULT);
+    }
+}
@@ -0,0 +1,90 @@
+package hello.springtx.pool;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 커넥션 획득/반납을 ConnectionDemandMonitor 에 알린다.
+ */
+public class MonitoredDataSource extends DelegatingDataSource {
+
+    private final ConnectionDemandMonitor monitor;
+
+    public MonitoredDataSource(DataSource targetDataSource, ConnectionDemandMonitor monitor) {
+        super(targetDataSource);
+        this.monitor = monitor;
+    }
+
+    public ConnectionDemandMonitor getMonitor() {
+        return monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Thread owner = Thread.currentThread();
+        int held = monitor.beforeAcquire(owner);
+        Connection connection;
+        try {
+            connection = super.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            monitor.acquireFailed(held);
+            throw e;
+        }
+        monitor.acquired(owner, held);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ReleaseHandler(connection, owner));
+    }
+
+    /**
+     * 커넥션(프록시) 하나의 반납을 한번만 알린다. 획득한 스레드(owner)와 다른 스레드에서 닫아도 된다.
+     */
+    private class ReleaseHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final Thread owner;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        ReleaseHandler(Connection target, Thread owner) {
+            this.target = target;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (closed.compareAndSet(false, true)) {
+                        monitor.released(owner);
+                    }
+                    break;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
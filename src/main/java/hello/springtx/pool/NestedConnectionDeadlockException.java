@@ -0,0 +1,14 @@
+package hello.springtx.pool;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * 커넥션을 보유한 스레드들이 서로의 추가 커넥션을 기다리는 상태 (FAIL 모드)
+ */
+public class NestedConnectionDeadlockException extends SQLTransientConnectionException {
+
+    public NestedConnectionDeadlockException(int poolSize, int held, long recommendedMinimumPoolSize) {
+        super("커넥션 교착상태 : 커넥션을 보유한 모든 스레드가 추가 커넥션을 기다립니다. poolSize=" + poolSize +
+                " held=" + held + " recommendedMinimumPoolSize=" + recommendedMinimumPoolSize);
+    }
+}
@@ -0,0 +1,284 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 로그 비동기 저장 (write-behind)
+ * 외부 트랜젝션이 커밋된 후에만 로그를 메모리 큐(bounded)에 넣고,
+ * 백그라운드 스레드가 큐에서 모아서 하나의 트랜젝션으로 일괄 저장한다.
+ *
+ * LogRepository.save() 는 REQUIRES_NEW 이므로 joinV1 호출 하나가 커넥션을 2개 사용한다.
+ * 비동기 모드에서는 요청 스레드가 커넥션 1개만 사용하고, 로그 저장은 writer 스레드의 커넥션 1개로 모아서 처리한다.
+ *
+ * log.async.backpressure : 큐가 가득 찼을 때의 동작
+ * BLOCK : 큐에 자리가 날 때까지 최대 log.async.block-timeout-ms 대기, 시간이 지나면 로그를 버림
+ *         (커밋 후 콜백은 아직 트랜젝션 커넥션을 반납하기 전이므로 무한정 대기하면 커넥션을 붙잡는다.)
+ * DROP  : 로그를 버림
+ * SYNC  : 호출 스레드에서 LogRepository.save() 로 바로 저장
+ *
+ * 종료(@PreDestroy) 이후에 들어온 로그는 writer 를 다시 시작하지 않고 호출 스레드에서 바로 저장한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AsyncLogWriter {
+
+    public enum Backpressure {
+        BLOCK, DROP, SYNC
+    }
+
+    private final LogRepository logRepository;
+
+    @Value("${log.async.enabled:false}")
+    private boolean enabled;
+    @Value("${log.async.capacity:1024}")
+    private int capacity;
+    @Value("${log.async.batch-size:100}")
+    private int batchSize;
+    @Value("${log.async.flush-interval-ms:50}")
+    private long flushIntervalMillis;
+    @Value("${log.async.backpressure:BLOCK}")
+    private Backpressure backpressure;
+    @Value("${log.async.block-timeout-ms:100}")
+    private long blockTimeoutMillis;
+    @Value("${log.async.max-retries:2}")
+    private int maxRetries;
+    @Value("${log.async.retry-backoff-ms:20}")
+    private long retryBackoffMillis;
+
+    private BlockingQueue<Log> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean closed;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    // writer 가 처리를 끝낸 로그 수 (저장 + 실패)
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    // flush() 에서 이미 알린 실패/버림 수
+    private final AtomicLong reportedLost = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 트랜젝션 안이면 커밋 후에 큐에 넣는다. 롤백되면 아무것도 남기지 않는다.
+     * 트랜젝션 밖이면 바로 큐에 넣는다.
+     */
+    public void write(Log logMessage) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(logMessage);
+                }
+            });
+        } else {
+            enqueue(logMessage);
+        }
+    }
+
+    public void enqueue(Log logMessage) {
+        if (!start()) {
+            saveSync(logMessage);
+            return;
+        }
+        switch (backpressure) {
+            case BLOCK:
+                try {
+                    if (queue.offer(logMessage, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        enqueued.incrementAndGet();
+                    } else {
+                        dropped.incrementAndGet();
+                        log.warn("로그 큐 대기 시간 초과, 로그 버림 message={}", logMessage.getMessage());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                    log.warn("로그 큐 대기중 인터럽트, 로그 버림 message={}", logMessage.getMessage());
+                }
+                break;
+            case DROP:
+                if (queue.offer(logMessage)) {
+                    enqueued.incrementAndGet();
+                } else {
+                    dropped.incrementAndGet();
+                    log.warn("로그 큐가 가득 차서 로그 버림 message={}", logMessage.getMessage());
+                }
+                break;
+            case SYNC:
+                if (queue.offer(logMessage)) {
+                    enqueued.incrementAndGet();
+                } else {
+                    saveSync(logMessage);
+                }
+                break;
+        }
+    }
+
+    private boolean saveSync(Log logMessage) {
+        try {
+            logRepository.save(logMessage);
+            return true;
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.info("log 저장에 실패했습니다. logMessage={}", logMessage.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * writer 스레드가 없으면 시작한다. 종료된 후에는 다시 시작하지 않고 false 를 반환한다.
+     */
+    private synchronized boolean start() {
+        if (closed) {
+            return false;
+        }
+        if (running) {
+            return true;
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "async-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        return true;
+    }
+
+    private void runWriter() {
+        List<Log> batch = new ArrayList<>(batchSize);
+        // 종료 요청 후에도 큐에 남은 로그는 모두 저장한다.
+        while (running || !queue.isEmpty()) {
+            try {
+                Log first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            processed.addAndGet(writeBatch(batch));
+            completed.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return 저장된 로그 수
+     */
+    private int writeBatch(List<Log> batch) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            try {
+                // 재시도시 롤백된 엔티티는 ID 가 할당되어 있으므로 새 엔티티로 다시 저장한다. (createdAt 유지)
+                logRepository.saveAll(attempt == 0 ? batch : copy(batch));
+                return batch.size();
+            } catch (RuntimeException e) {
+                log.info("log 일괄 저장 실패 attempt={} size={}", attempt + 1, batch.size());
+                if (attempt < maxRetries && !backoff(attempt)) {
+                    break;
+                }
+            }
+        }
+        // 재시도 후에도 실패하면 한건씩 다시 저장해서 실패한 로그만 버린다.
+        int written = 0;
+        for (Log logMessage : copy(batch)) {
+            if (saveSync(logMessage)) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private List<Log> copy(List<Log> batch) {
+        List<Log> copy = new ArrayList<>(batch.size());
+        for (Log logMessage : batch) {
+            copy.add(new Log(logMessage.getMessage(), logMessage.getCreatedAt()));
+        }
+        return copy;
+    }
+
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMillis << attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 지금까지 큐에 들어간 로그의 처리(저장 또는 실패)가 끝날 때까지 대기
+     * @return 모두 저장되었으면 true
+     *         시간 초과, 또는 이전 flush 이후 저장에 실패했거나 버려진 로그가 있으면 false
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long target = enqueued.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (completed.get() < target) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        long lost = failed.get() + dropped.get();
+        return reportedLost.getAndSet(lost) == lost;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        synchronized (this) {
+            closed = true;
+            if (!running) {
+                return;
+            }
+            running = false;
+        }
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        // writer 종료 직전에 큐에 들어간 로그는 여기서 저장한다.
+        List<Log> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (Log logMessage : rest) {
+            if (saveSync(logMessage)) {
+                processed.incrementAndGet();
+            }
+            completed.incrementAndGet();
+        }
+        log.info("async log writer 종료 processed={} dropped={} failed={}", processed.get(), dropped.get(), failed.get());
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,30 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * MemberService.joinAll() 결과
+ */
+@Getter
+@ToString
+public class JoinAllResult {
+
+    private final int requested;
+    private final int joined;
+    // 한건씩 다시 저장해도 실패한 username (회원, 로그 모두 저장되지 않음)
+    private final List<String> failedUsernames;
+    private final long chunks;
+    // 실패해서 한건씩 다시 저장한 청크 수
+    private final long retriedChunks;
+
+    public JoinAllResult(int requested, List<String> failedUsernames, long chunks, long retriedChunks) {
+        this.requested = requested;
+        this.joined = requested - failedUsernames.size();
+        this.failedUsernames = failedUsernames;
+        this.chunks = chunks;
+        this.retriedChunks = retriedChunks;
+    }
+}
@@ -1,26 +1,91 @@
 package hello.springtx.propagation;
 
+import hello.springtx.id.PooledSequenceGenerator;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQuery;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 
+/**
+ * 조회 쿼리는 @NamedQuery 로 선언한다. (SchemaIndexChecker 가 시작 시점에 조회 조건 컬럼의 인덱스를 확인한다.)
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_log_message_id", columnList = "message, Id"), // find() 조회 조건, prefix keyset 페이징
+        @Index(name = "idx_log_bucket_created", columnList = "bucket, createdAt")}) // 기간 조회, 보관 기간 정리
+@NamedQuery(name = Log.EXISTS_BY_MESSAGE, query = "select 1 from Log l where l.message = :message")
+@NamedQuery(name = Log.FIND_DTO_BY_MESSAGE, query = "select new hello.springtx.propagation.LogDto(l.Id, l.message)" +
+        " from Log l where l.message = :message")
+@NamedQuery(name = Log.FIND_PAGE_AFTER, query = "select new hello.springtx.propagation.LogDto(l.Id, l.message)" +
+        " from Log l where l.Id > :lastId order by l.Id")
+@NamedQuery(name = Log.FIND_PAGE_BY_PREFIX_AFTER, query = "select new hello.springtx.propagation.LogDto(l.Id, l.message)" +
+        " from Log l where l.message like :prefix escape '!'" +
+        " and (l.message > :lastMessage or (l.message = :lastMessage and l.Id > :lastId)) order by l.message, l.Id")
+@NamedQuery(name = Log.FIND_BETWEEN, query = "select new hello.springtx.propagation.LogDto(l.Id, l.message)" +
+        " from Log l where l.bucket between :fromBucket and :toBucket" +
+        " and l.createdAt >= :from and l.createdAt < :to and l.Id > :lastId order by l.Id")
 @Getter
 @Setter
 public class Log {
 
+    static final String EXISTS_BY_MESSAGE = "Log.existsByMessage";
+    static final String FIND_DTO_BY_MESSAGE = "Log.findDtoByMessage";
+    static final String FIND_PAGE_AFTER = "Log.findPageAfter";
+    static final String FIND_PAGE_BY_PREFIX_AFTER = "Log.findPageByPrefixAfter";
+    static final String FIND_BETWEEN = "Log.findBetween";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "log_id_generator")
+    @GenericGenerator(name = "log_id_generator", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = "sequence_name", value = "log_seq"),
+            @Parameter(name = "increment_size", value = "50")})
     private Long Id;
     private String message;
+    @Setter(AccessLevel.NONE)
+    private LocalDateTime createdAt;
+
+    // 파티션 키 : createdAt 의 날짜 (yyyyMMdd)
+    // 기간 조회는 bucket 조건으로 범위를 줄이고, 보관 기간 정리는 bucket 단위로 처리한다.
+    // createdAt 으로만 계산하므로 setter 를 두지 않는다. (저장/변경 시점에 다시 계산)
+    @Setter(AccessLevel.NONE)
+    private int bucket;
 
     public Log() {
     }
 
     public Log(String message) {
+        this(message, LocalDateTime.now());
+    }
+
+    public Log(String message, LocalDateTime createdAt) {
         this.message = message;
+        this.createdAt = createdAt;
+        updateBucket();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateBucket() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        bucket = bucketOf(createdAt.toLocalDate());
+    }
+
+    public static int bucketOf(LocalDate date) {
+        return date.getYear() * 10_000 + date.getMonthValue() * 100 + date.getDayOfMonth();
     }
 }
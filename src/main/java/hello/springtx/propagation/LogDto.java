@@ -0,0 +1,20 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 로그 조회용 DTO (영속성 컨텍스트에서 관리되지 않는다)
+ */
+@Getter
+@ToString
+public class LogDto {
+
+    private final Long id;
+    private final String message;
+
+    public LogDto(Long id, String message) {
+        this.id = id;
+        this.message = message;
+    }
+}
@@ -7,6 +7,8 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -28,9 +30,108 @@ public class LogRepository {
         }
     }
 
-    public Optional<Log> find(String message) {
-        return entityManager.createQuery("select l from Log l where l.message = :message", Log.class)
+    /**
+     * 외부 트랜젝션 안에서 savepoint 를 사용하는 중첩 트랜젝션으로 저장 (SavepointHibernateJpaDialect)
+     * 실패하면 savepoint 까지만 롤백되므로 외부 트랜젝션은 커밋할 수 있다.
+     * REQUIRES_NEW 와 달리 같은 커넥션을 사용한다. (tx.nested.enabled=true 필요)
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public void saveNested(Log logMessage) {
+        log.info("log 저장 (NESTED)");
+        entityManager.persist(logMessage);
+
+        // 로그예외 로직
+        if (logMessage.getMessage().contains("로그예외")) {
+            log.info("log 저장시 예외 발생");
+            throw new RuntimeException("예외 발생");
+        }
+    }
+
+    /**
+     * 로그 일괄 저장 (AsyncLogWriter 에서 사용)
+     * 하나의 트랜젝션으로 저장하고, insert 는 JDBC batch 로 전송된다.
+     */
+    @Transactional
+    public void saveAll(List<Log> logMessages) {
+        log.info("log 일괄 저장 size={}", logMessages.size());
+        for (Log logMessage : logMessages) {
+            entityManager.persist(logMessage);
+
+            // 로그예외 로직
+            if (logMessage.getMessage().contains("로그예외")) {
+                log.info("log 저장시 예외 발생");
+                throw new RuntimeException("예외 발생");
+            }
+        }
+    }
+
+    /**
+     * 존재 여부만 확인 : select 1 ... limit 1
+     */
+    @Transactional(readOnly = true)
+    public boolean existsByMessage(String message) {
+        return !entityManager.createNamedQuery(Log.EXISTS_BY_MESSAGE)
+                .setParameter("message", message)
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    /**
+     * DTO 로 한건만 조회 (엔티티를 영속성 컨텍스트에 올리지 않는다)
+     */
+    @Transactional(readOnly = true)
+    public Optional<LogDto> find(String message) {
+        return entityManager.createNamedQuery(Log.FIND_DTO_BY_MESSAGE, LogDto.class)
                 .setParameter("message", message)
-                .getResultList().stream().findAny();
+                .setMaxResults(1)
+                .getResultList().stream().findFirst();
+    }
+
+    /**
+     * keyset 페이징 : id > lastId 인 로그를 id 순서로 limit 건 조회 (첫 페이지는 lastId = 0)
+     * offset 을 사용하지 않으므로 뒤쪽 페이지도 첫 페이지와 비용이 같다.
+     */
+    @Transactional(readOnly = true)
+    public List<LogDto> findPageAfter(long lastId, int limit) {
+        return entityManager.createNamedQuery(Log.FIND_PAGE_AFTER, LogDto.class)
+                .setParameter("lastId", lastId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * message 가 prefix 로 시작하는 로그 keyset 페이징 (첫 페이지는 last = null)
+     * (message, id) 순서로 정렬하고 마지막으로 읽은 (message, id) 다음부터 조회한다.
+     * prefix 는 idx_log_message_id 의 범위 조건이 되고 정렬도 인덱스 순서와 같으므로 limit 건만 읽는다.
+     * prefix 의 % _ 는 like 패턴이 아닌 문자로 검색한다. (escape 문자 !)
+     */
+    @Transactional(readOnly = true)
+    public List<LogDto> findPageAfter(String messagePrefix, LogDto last, int limit) {
+        return entityManager.createNamedQuery(Log.FIND_PAGE_BY_PREFIX_AFTER, LogDto.class)
+                .setParameter("prefix", escapeLike(messagePrefix) + "%")
+                .setParameter("lastMessage", last == null ? "" : last.getMessage())
+                .setParameter("lastId", last == null ? 0L : last.getId())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * 기간 조회 [from, to) keyset 페이징
+     * createdAt 조건에 bucket 범위 조건을 더해서 해당 기간의 bucket 만 읽는다. (idx_log_bucket_created)
+     */
+    @Transactional(readOnly = true)
+    public List<LogDto> findBetween(LocalDateTime from, LocalDateTime to, long lastId, int limit) {
+        return entityManager.createNamedQuery(Log.FIND_BETWEEN, LogDto.class)
+                .setParameter("fromBucket", Log.bucketOf(from.toLocalDate()))
+                .setParameter("toBucket", Log.bucketOf(to.toLocalDate()))
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("lastId", lastId)
+                .setMaxResults(limit)
+                .getResultList();
     }
 }
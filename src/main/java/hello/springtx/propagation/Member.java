@@ -1,19 +1,43 @@
 package hello.springtx.propagation;
 
+import hello.springtx.id.PooledSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
+/**
+ * 조회 쿼리는 @NamedQuery 로 선언한다. (SchemaIndexChecker 가 시작 시점에 조회 조건 컬럼의 인덱스를 확인한다.)
+ *
+ * username 은 unique (uk_member_username) 이다. 같은 username 으로는 회원이 1명만 저장된다.
+ * joinV1, joinV2, MemberImporter 로 이미 있는 username 을 저장하면 제약조건 위반(DataIntegrityViolationException)으로
+ * 해당 트랜젝션이 롤백된다. 중복 회원을 허용해야 하면 제약조건 대신 일반 인덱스로 바꾼다.
+ */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_username", columnNames = "username")) // find() 조회 조건
+@NamedQuery(name = Member.EXISTS_BY_USERNAME, query = "select 1 from Member m where m.username = :username")
+@NamedQuery(name = Member.FIND_DTO_BY_USERNAME, query = "select new hello.springtx.propagation.MemberDto(m.Id, m.username)" +
+        " from Member m where m.username = :username")
 @Getter
 @Setter
 public class Member {
 
+    static final String EXISTS_BY_USERNAME = "Member.existsByUsername";
+    static final String FIND_DTO_BY_USERNAME = "Member.findDtoByUsername";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_id_generator")
+    @GenericGenerator(name = "member_id_generator", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = "sequence_name", value = "member_seq"),
+            @Parameter(name = "increment_size", value = "50")})
     private Long Id;
     private String username;
 
@@ -0,0 +1,140 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * username -> MemberDto 캐시 (LRU + TTL)
+ *
+ * 트랜젝션 안에서의 put/evict 는 바로 반영하지 않고 트랜젝션 동기화에 등록한다.
+ * put : 커밋 후에만 반영 (롤백되면 반영하지 않음 -> 커밋되지 않은 데이터가 캐시에 남지 않는다)
+ * evict : 트랜젝션 완료 후 반영 (커밋/롤백 모두)
+ * 트랜젝션 밖이면 바로 반영한다.
+ */
+@Slf4j
+@Component
+public class MemberCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MemberCache(@Value("${member.cache.max-size:10000}") int maxSize,
+                       @Value("${member.cache.ttl-millis:600000}") long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        // accessOrder = true : 조회 순서 기준으로 가장 오래된 항목을 제거 (LRU)
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > MemberCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public MemberDto get(String username) {
+        synchronized (entries) {
+            Entry entry = entries.get(username);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (System.nanoTime() - entry.createdAt > ttlNanos) {
+                entries.remove(username);
+                evictions.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.member;
+        }
+    }
+
+    public void put(String username, MemberDto member) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putNow(username, member);
+                }
+            });
+        } else {
+            putNow(username, member);
+        }
+    }
+
+    public void evict(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(username);
+                }
+            });
+        } else {
+            evictNow(username);
+        }
+    }
+
+    private void putNow(String username, MemberDto member) {
+        synchronized (entries) {
+            entries.put(username, new Entry(member, System.nanoTime()));
+        }
+    }
+
+    private void evictNow(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+
+    public boolean contains(String username) {
+        synchronized (entries) {
+            return entries.containsKey(username);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private static final class Entry {
+        private final MemberDto member;
+        private final long createdAt;
+
+        private Entry(MemberDto member, long createdAt) {
+            this.member = member;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 회원 조회용 DTO (영속성 컨텍스트에서 관리되지 않는다)
+ */
+@Getter
+@ToString
+public class MemberDto {
+
+    private final Long id;
+    private final String username;
+
+    public MemberDto(Long id, String username) {
+        this.id = id;
+        this.username = username;
+    }
+}
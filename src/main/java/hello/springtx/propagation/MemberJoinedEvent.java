@@ -0,0 +1,23 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * 회원가입 이벤트 : 트랜젝션 커밋 후 MemberJoinedEventListener 가 로그를 저장한다.
+ * joinedAt 은 가입 시점이다. 리스너는 커밋 후에 실행되므로 로그 시간(bucket)은 이 값으로 남긴다.
+ */
+@Getter
+@ToString
+public class MemberJoinedEvent {
+
+    private final String username;
+    private final LocalDateTime joinedAt;
+
+    public MemberJoinedEvent(String username, LocalDateTime joinedAt) {
+        this.username = username;
+        this.joinedAt = joinedAt;
+    }
+}
@@ -0,0 +1,42 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 회원가입 트랜젝션이 커밋된 후에만 실행된다. (롤백되면 실행되지 않음)
+ * 저장 방식은 MemberService.saveLog() 와 같다.
+ * log.async.enabled=true 이면 AsyncLogWriter 의 전용 스레드(bounded 큐)에서 일괄 트랜젝션으로 처리하므로
+ * 요청 스레드의 응답 시간에 로그 저장 시간이 더해지지 않는다.
+ * 아니면 LogRepository.save() (REQUIRES_NEW) 로 바로 저장한다. (writer 스레드를 시작하지 않음)
+ * 로그 시간은 리스너 실행 시점이 아닌 이벤트의 가입 시점(joinedAt)이다.
+ *
+ * fallbackExecution = true : 트랜젝션 밖에서 발행된 이벤트(joinV2)도 처리
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberJoinedEventListener {
+
+    private final AsyncLogWriter asyncLogWriter;
+    private final LogRepository logRepository;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMemberJoined(MemberJoinedEvent event) {
+        log.info("회원가입 이벤트 수신 username={}", event.getUsername());
+        Log logMessage = new Log(event.getUsername(), event.getJoinedAt());
+        if (asyncLogWriter.isEnabled()) {
+            asyncLogWriter.enqueue(logMessage);
+            return;
+        }
+        // 회원가입은 이미 커밋되었으므로 로그 저장 실패를 호출한 쪽으로 전파하지 않는다.
+        try {
+            logRepository.save(logMessage);
+        } catch (RuntimeException e) {
+            log.info("log 저장에 실패했습니다. logMessage={}", logMessage.getMessage());
+        }
+    }
+}
@@ -1,30 +1,67 @@
 package hello.springtx.propagation;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.persistence.EntityManager;
 import java.util.Optional;
 
 @Slf4j
 @Repository
-@RequiredArgsConstructor
 public class MemberRepository {
 
+    static final String FIND_TRANSACTION_NAME = MemberRepository.class.getName() + ".find";
+
     private final EntityManager entityManager;
+    private final MemberCache memberCache;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public MemberRepository(EntityManager entityManager, MemberCache memberCache, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.memberCache = memberCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.readOnlyTransaction.setName(FIND_TRANSACTION_NAME);
+    }
 
     @Transactional
     public void save(Member member) {
         log.info("member 저장");
         entityManager.persist(member);
+        memberCache.evict(member.getUsername());
     }
 
-    public Optional<Member> find(String username) {
-        return entityManager.createQuery("select m from Member m where m.username = :username", Member.class)
+    /**
+     * 존재 여부만 확인 : select 1 ... limit 1
+     */
+    @Transactional(readOnly = true)
+    public boolean existsByUsername(String username) {
+        return !entityManager.createNamedQuery(Member.EXISTS_BY_USERNAME)
                 .setParameter("username", username)
-                .getResultList().stream().findAny(); // findAny() 하나만 추출
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    /**
+     * DTO 로 한건만 조회 (엔티티를 영속성 컨텍스트에 올리지 않는다)
+     * MemberCache 를 먼저 조회하고, 없으면 DB 에서 조회 후 캐시에 넣는다. (트랜젝션 안이면 커밋 후)
+     * 캐시 hit 이면 트랜젝션을 시작하지 않으므로 커넥션도 사용하지 않는다. readOnly 트랜젝션은 DB 조회에만 사용한다.
+     */
+    public Optional<MemberDto> find(String username) {
+        MemberDto cached = memberCache.get(username);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<MemberDto> member = readOnlyTransaction.execute(status ->
+                entityManager.createNamedQuery(Member.FIND_DTO_BY_USERNAME, MemberDto.class)
+                        .setParameter("username", username)
+                        .setMaxResults(1)
+                        .getResultList().stream().findFirst());
+        member.ifPresent(m -> memberCache.put(username, m));
+        return member;
     }
 
 }
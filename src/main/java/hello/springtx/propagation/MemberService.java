@@ -1,9 +1,31 @@
 package hello.springtx.propagation;
 
+import hello.springtx.engine.OrderProcessingEngine.Threads;
+import hello.springtx.engine.VirtualThreads;
+import hello.springtx.pool.ConnectionPoolSize;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
 @Service
@@ -12,6 +34,58 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final AsyncLogWriter asyncLogWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+
+    // true 이면 로그를 직접 저장하지 않고 MemberJoinedEvent 를 발행한다.
+    @Value("${member.join.events.enabled:false}")
+    private boolean joinEventsEnabled;
+
+    // joinAll() 에서 하나의 트랜젝션으로 묶는 회원 수
+    @Value("${member.join-all.chunk-size:100}")
+    private int joinAllChunkSize;
+    // joinAll() 동시 실행 수, 0 이면 min(CPU 코어 수, 커넥션 풀 크기 - 1)
+    @Value("${member.join-all.parallelism:0}")
+    private int joinAllParallelism;
+    // joinAll() 작업 스레드 : PLATFORM (ForkJoinPool), VIRTUAL (청크마다 가상 스레드, JDK 21 미만이면 PLATFORM)
+    @Value("${member.join-all.threads:PLATFORM}")
+    private Threads joinAllThreads;
+    // PLATFORM : joinAll() 작업 스레드 (모든 joinAll() 호출이 공유)
+    private ForkJoinPool joinAllPool;
+    // VIRTUAL : 가상 스레드 executor 와 동시에 청크 트랜젝션을 실행하는 수 제한 (parallelism, 모든 joinAll() 호출이 공유)
+    private ExecutorService joinAllExecutor;
+    private Semaphore joinAllPermits;
+
+    @PostConstruct
+    void init() {
+        if (joinAllParallelism <= 0) {
+            joinAllParallelism = Math.max(1,
+                    Math.min(Runtime.getRuntime().availableProcessors(), ConnectionPoolSize.of(dataSource) - 1));
+        }
+        if (joinAllThreads == Threads.VIRTUAL && !VirtualThreads.isSupported()) {
+            log.warn("가상 스레드를 지원하지 않는 JDK 입니다. joinAll 은 PLATFORM 으로 동작합니다. version={}", Runtime.version());
+            joinAllThreads = Threads.PLATFORM;
+        }
+        if (joinAllThreads == Threads.VIRTUAL) {
+            joinAllExecutor = VirtualThreads.newPerTaskExecutor();
+            joinAllPermits = new Semaphore(joinAllParallelism);
+        } else {
+            joinAllPool = new ForkJoinPool(joinAllParallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null,
+                    false, 0, joinAllParallelism, 1, p -> true, 60, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (joinAllPool != null) {
+            joinAllPool.shutdown();
+        }
+        if (joinAllExecutor != null) {
+            joinAllExecutor.shutdown();
+        }
+    }
 
     /**
      * 회원과 DB 로그를 함께 남기는 비즈니스 로직
@@ -27,7 +101,7 @@ public class MemberService {
         log.info("== memberRepository 호출 종료 ==");
 
         log.info("== logRepository 호출 시작 ==");
-        logRepository.save(logMessage);
+        saveLog(logMessage);
         log.info("== logRepository 호출 종료 ==");
     }
 
@@ -46,11 +120,168 @@ public class MemberService {
 
         log.info("== logRepository 호출 시작 ==");
         try {
-            logRepository.save(logMessage);
+            saveLog(logMessage);
         } catch (RuntimeException e) {
             log.info("log 저장에 실패했습니다. logMessage={}", logMessage.getMessage());
             log.info("정상 흐름 변환");
         }
         log.info("== logRepository 호출 종료 ==");
     }
+
+    /**
+     * joinV2() 와 같은 기능 수행
+     * 로그는 NESTED (savepoint) 로 저장하므로 로그 저장에 실패해도 회원은 커밋된다.
+     * REQUIRES_NEW 와 달리 커넥션 1개만 사용한다. (tx.nested.enabled=true 필요)
+     */
+    @Transactional
+    public void joinV3(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("== memberRepository 호출 시작 ==");
+        memberRepository.save(member);
+        log.info("== memberRepository 호출 종료 ==");
+
+        log.info("== logRepository 호출 시작 ==");
+        try {
+            logRepository.saveNested(logMessage);
+        } catch (RuntimeException e) {
+            log.info("log 저장에 실패했습니다. logMessage={}", logMessage.getMessage());
+            log.info("정상 흐름 변환");
+        }
+        log.info("== logRepository 호출 종료 ==");
+    }
+
+    /**
+     * 회원 일괄 가입
+     * fork/join 으로 chunkSize 단위까지 나누고, 청크마다 트랜젝션 1개로 회원과 로그를 함께 저장한다.
+     * 청크 하나가 실패하면(예: 로그예외) 그 청크만 롤백하고 한건씩 다시 저장해서 실패한 회원만 제외한다.
+     *
+     * 작업 스레드마다 커넥션을 1개 사용하므로 스레드 수(parallelism)는 커넥션 풀 크기보다 작게 제한한다.
+     * ForkJoinPool 이 join() 대기 중에 보상 스레드를 더 만들지 않도록 최대 스레드 수도 parallelism 으로 고정한다.
+     * ForkJoinPool 은 시작 시점에 한번 만들고 모든 호출이 공유하므로, 동시에 호출해도 스레드(커넥션) 수는 parallelism 이다.
+     *
+     * member.join-all.threads=VIRTUAL 이면 chunkSize 단위로 나눈 청크마다 가상 스레드를 사용한다.
+     * 동시에 청크 트랜젝션을 실행하는 수는 Semaphore(parallelism) 로 제한하므로 커넥션 사용량은 PLATFORM 과 같다.
+     * 나머지 청크의 가상 스레드는 Semaphore 에서 대기하고, 대기 중에는 캐리어 스레드를 반환한다.
+     */
+    public JoinAllResult joinAll(Collection<String> usernames) {
+        List<String> list = new ArrayList<>(usernames);
+        JoinAllContext context = new JoinAllContext();
+        if (joinAllExecutor != null) {
+            joinAllVirtual(list, context);
+        } else {
+            joinAllPool.invoke(new JoinAllTask(list, context));
+        }
+        JoinAllResult result = new JoinAllResult(list.size(), new ArrayList<>(context.failed),
+                context.chunks.sum(), context.retriedChunks.sum());
+        log.info("joinAll 완료 threads={} parallelism={} {}", joinAllThreads, joinAllParallelism, result);
+        return result;
+    }
+
+    private void joinAllVirtual(List<String> usernames, JoinAllContext context) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < usernames.size(); from += joinAllChunkSize) {
+            List<String> chunk = usernames.subList(from, Math.min(from + joinAllChunkSize, usernames.size()));
+            futures.add(joinAllExecutor.submit(() -> {
+                joinAllPermits.acquireUninterruptibly();
+                try {
+                    joinChunk(chunk, context);
+                } finally {
+                    joinAllPermits.release();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("joinAll 대기중 인터럽트", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException("joinAll 청크 처리 실패", e.getCause());
+            }
+        }
+    }
+
+    public Threads getJoinAllThreads() {
+        return joinAllThreads;
+    }
+
+    private class JoinAllTask extends RecursiveAction {
+
+        private final List<String> usernames;
+        private final JoinAllContext context;
+
+        JoinAllTask(List<String> usernames, JoinAllContext context) {
+            this.usernames = usernames;
+            this.context = context;
+        }
+
+        @Override
+        protected void compute() {
+            if (usernames.size() <= joinAllChunkSize) {
+                joinChunk(usernames, context);
+                return;
+            }
+            int middle = usernames.size() / 2;
+            invokeAll(new JoinAllTask(usernames.subList(0, middle), context),
+                    new JoinAllTask(usernames.subList(middle, usernames.size()), context));
+        }
+    }
+
+    private void joinChunk(List<String> chunk, JoinAllContext context) {
+        context.chunks.increment();
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveMembersAndLogs(chunk));
+            return;
+        } catch (RuntimeException e) {
+            log.info("joinAll 청크 저장 실패, 한건씩 다시 저장 size={}", chunk.size());
+            context.retriedChunks.increment();
+        }
+        for (String username : chunk) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> saveMembersAndLogs(List.of(username)));
+            } catch (RuntimeException e) {
+                log.info("joinAll 회원 저장 실패 username={}", username);
+                context.failed.add(username);
+            }
+        }
+    }
+
+    /**
+     * 호출한 트랜젝션 안에서 회원과 로그를 저장한다. (MemberRepository, LogRepository 모두 REQUIRED 로 참여)
+     */
+    private void saveMembersAndLogs(List<String> usernames) {
+        List<Log> logs = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            memberRepository.save(new Member(username));
+            logs.add(new Log(username));
+        }
+        logRepository.saveAll(logs);
+    }
+
+    private static class JoinAllContext {
+        final ConcurrentLinkedQueue<String> failed = new ConcurrentLinkedQueue<>();
+        final LongAdder chunks = new LongAdder();
+        final LongAdder retriedChunks = new LongAdder();
+    }
+
+    /**
+     * member.join.events.enabled=true 이면 MemberJoinedEvent 발행 (커밋 후 리스너가 저장)
+     * log.async.enabled=true 이면 커밋 후 비동기로 저장 (커넥션 1개만 사용)
+     * 아니면 LogRepository.save() (REQUIRES_NEW) 로 바로 저장
+     */
+    private void saveLog(Log logMessage) {
+        if (joinEventsEnabled) {
+            eventPublisher.publishEvent(new MemberJoinedEvent(logMessage.getMessage(), logMessage.getCreatedAt()));
+        } else if (asyncLogWriter.isEnabled()) {
+            asyncLogWriter.write(logMessage);
+        } else {
+            logRepository.save(logMessage);
+        }
+    }
 }
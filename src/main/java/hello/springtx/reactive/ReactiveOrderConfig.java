@@ -0,0 +1,62 @@
+package hello.springtx.reactive;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * order.reactive.enabled=true 이면 R2DBC 리액티브 주문 처리 (ReactiveOrderService) 를 등록한다.
+ * JPA(JDBC) 와 같은 DB 를 사용하도록 order.reactive.r2dbc-url 을 spring.datasource.url 과 같은 DB 로 지정한다.
+ *
+ * ConnectionFactory 와 R2dbcTransactionManager 는 빈으로 등록하지 않고 DatabaseClient, TransactionalOperator 안에서만 사용한다.
+ * ConnectionFactory 빈이 있으면 DataSource 자동 설정(@ConditionalOnMissingBean(type = "io.r2dbc.spi.ConnectionFactory"))이 빠지고,
+ * TransactionManager 빈이 2개가 되면 JpaTransactionManager 자동 등록(@ConditionalOnMissingBean)이 빠지고
+ * @Transactional 이 어느 트랜젝션 매니저를 사용할지 정할 수 없게 된다.
+ * 같은 이유로 스프링 부트의 R2DBC 자동 설정은 application.properties 에서 제외한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.reactive.enabled", havingValue = "true")
+public class ReactiveOrderConfig {
+
+    private final ConnectionFactory connectionFactory;
+
+    public ReactiveOrderConfig(@Value("${order.reactive.r2dbc-url}") String url,
+                               @Value("${order.reactive.r2dbc-username:sa}") String username,
+                               @Value("${order.reactive.r2dbc-password:}") String password) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.connectionFactory = ConnectionFactories.get(options);
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient() {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    /**
+     * 빈이 아니므로 컨테이너가 닫아주지 않는다. (r2dbc:pool 이면 커넥션 풀 종료)
+     */
+    @PreDestroy
+    void close() {
+        if (connectionFactory instanceof Disposable) {
+            ((Disposable) connectionFactory).dispose();
+        }
+    }
+}
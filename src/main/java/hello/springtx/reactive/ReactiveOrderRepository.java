@@ -0,0 +1,88 @@
+package hello.springtx.reactive;
+
+import hello.springtx.id.PooledSequenceGenerator;
+import hello.springtx.order.Order;
+import hello.springtx.outbox.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * OrderRepository 의 R2DBC 버전 (JPA 와 같은 orders, outbox_event 테이블 사용)
+ * id 는 JPA 와 같은 시퀀스에서 받는다. JPA 는 시퀀스 값 하나로 increment-size(50) 개의 id 블록을 사용하므로
+ * 여기서도 같은 크기의 블록을 받아 메모리에서 발급한다. (ReactivePooledLoSequence, insert 마다 시퀀스를 조회하지 않음)
+ * 블록 크기는 PooledSequenceGenerator 와 같은 설정(spring.jpa.properties.springtx.id.{sequence_name}.increment-size)을 따른다.
+ */
+@Repository
+@ConditionalOnProperty(name = "order.reactive.enabled", havingValue = "true")
+public class ReactiveOrderRepository {
+
+    private final DatabaseClient reactiveDatabaseClient;
+    private final ReactivePooledLoSequence orderIds;
+    private final ReactivePooledLoSequence outboxIds;
+
+    public ReactiveOrderRepository(DatabaseClient reactiveDatabaseClient,
+                                   @Value("${spring.jpa.properties." + PooledSequenceGenerator.SETTING_PREFIX + "orders_seq"
+                                           + PooledSequenceGenerator.SETTING_SUFFIX + ":50}") int orderIncrementSize,
+                                   @Value("${spring.jpa.properties." + PooledSequenceGenerator.SETTING_PREFIX + "outbox_seq"
+                                           + PooledSequenceGenerator.SETTING_SUFFIX + ":50}") int outboxIncrementSize) {
+        this.reactiveDatabaseClient = reactiveDatabaseClient;
+        this.orderIds = new ReactivePooledLoSequence(nextValue("orders_seq"), orderIncrementSize);
+        this.outboxIds = new ReactivePooledLoSequence(nextValue("outbox_seq"), outboxIncrementSize);
+    }
+
+    public Mono<Order> save(Order order) {
+        return orderIds.next()
+                .flatMap(id -> {
+                    DatabaseClient.GenericExecuteSpec insert = reactiveDatabaseClient
+                            .sql("insert into orders (id, username, pay_status) values (:id, :username, :payStatus)")
+                            .bind("id", id)
+                            .bind("username", order.getUsername());
+                    // 결제 전(예외)에는 payStatus 가 없다.
+                    insert = order.getPayStatus() == null
+                            ? insert.bindNull("payStatus", String.class)
+                            : insert.bind("payStatus", order.getPayStatus());
+                    return insert.fetch().rowsUpdated().doOnNext(updated -> order.setId(id));
+                })
+                .thenReturn(order);
+    }
+
+    public Mono<OutboxEvent> saveOutbox(OutboxEvent event) {
+        return outboxIds.next()
+                .flatMap(id -> reactiveDatabaseClient.sql("insert into outbox_event" +
+                                " (id, event_type, order_id, username, pay_status, created_at)" +
+                                " values (:id, :eventType, :orderId, :username, :payStatus, :createdAt)")
+                        .bind("id", id)
+                        .bind("eventType", event.getEventType())
+                        .bind("orderId", event.getOrderId())
+                        .bind("username", event.getUsername())
+                        .bind("payStatus", event.getPayStatus())
+                        .bind("createdAt", event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now())
+                        .fetch().rowsUpdated()
+                        .doOnNext(updated -> event.setId(id)))
+                .thenReturn(event);
+    }
+
+    public Mono<Order> findById(Long id) {
+        return reactiveDatabaseClient.sql("select id, username, pay_status from orders where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> {
+                    Order order = new Order();
+                    order.setId(row.get("id", Long.class));
+                    order.setUsername(row.get("username", String.class));
+                    order.setPayStatus(row.get("pay_status", String.class));
+                    return order;
+                })
+                .one();
+    }
+
+    private Mono<Long> nextValue(String sequence) {
+        return reactiveDatabaseClient.sql("select next value for " + sequence)
+                .map((row, metadata) -> row.get(0, Long.class))
+                .one();
+    }
+}
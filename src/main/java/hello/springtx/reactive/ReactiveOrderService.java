@@ -0,0 +1,63 @@
+package hello.springtx.reactive;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderResult;
+import hello.springtx.outbox.OutboxEvent;
+import hello.springtx.outbox.OutboxWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * OrderService 의 리액티브 버전 (R2DBC, TransactionalOperator)
+ * 커밋 / 롤백 규칙은 OrderService.order() 와 같다.
+ * 정상 : payStatus 완료로 커밋
+ * 예외 : RuntimeException("시스템 예외") 으로 롤백
+ * 잔고부족 : payStatus 대기로 커밋한 후 NotEnoughMoneyException 신호
+ *
+ * TransactionalOperator 는 에러 신호를 받으면 롤백하므로, 잔고부족 예외는 트랜젝션 밖(커밋 후)에서 보낸다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order.reactive.enabled", havingValue = "true")
+public class ReactiveOrderService {
+
+    private final ReactiveOrderRepository reactiveOrderRepository;
+    private final TransactionalOperator reactiveTransactionalOperator;
+    private final OutboxWriter outboxWriter;
+
+    public Mono<Order> order(Order order) {
+        return Mono.defer(() -> {
+                    log.debug("reactive order 호출 username={}", order.getUsername());
+                    if (order.getUsername().equals("예외")) {
+                        return reactiveOrderRepository.save(order)
+                                .then(Mono.<Order>error(new RuntimeException("시스템 예외")));
+                    }
+                    order.setPayStatus(order.getUsername().equals("잔고부족") ? "대기" : "완료");
+                    Mono<Order> saved = reactiveOrderRepository.save(order);
+                    if (outboxWriter.isEnabled()) {
+                        saved = saved.flatMap(o -> reactiveOrderRepository.saveOutbox(OutboxEvent.paymentOf(o)).thenReturn(o));
+                    }
+                    return saved.thenReturn(order);
+                })
+                .as(reactiveTransactionalOperator::transactional)
+                .flatMap(committed -> committed.getPayStatus().equals("대기")
+                        ? Mono.error(new NotEnoughMoneyException("잔고가 부족합니다"))
+                        : Mono.just(committed));
+    }
+
+    /**
+     * order() 결과를 OrderResult 로 변환 (OrderProcessingEngine 과 같은 규칙)
+     */
+    public Mono<OrderResult> process(Order order) {
+        return order(order)
+                .map(OrderResult::completed)
+                .onErrorResume(NotEnoughMoneyException.class, e -> Mono.just(OrderResult.pending(order, e.getMessage())))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(OrderResult.rolledBack(order, e.getMessage())));
+    }
+}
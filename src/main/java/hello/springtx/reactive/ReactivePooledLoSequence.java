@@ -0,0 +1,86 @@
+package hello.springtx.reactive;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * R2DBC 용 pooled-lo id 발급 (LockFreePooledLoOptimizer 와 같은 방식)
+ * 시퀀스 값 v 를 받으면 v ~ v + incrementSize - 1 까지를 하나의 블록으로 사용한다.
+ *
+ * 블록 안의 발급은 CAS(getAndIncrement) 로 처리하고, 블록이 소진되었을 때만 시퀀스를 조회한다.
+ * 리액티브 체인에서는 lock 을 잡고 기다릴 수 없으므로 진행 중인 조회(Mono.cache())를 공유해서
+ * 동시에 소진을 발견한 요청들이 시퀀스를 한번만 조회하고 같은 새 블록을 기다리게 한다.
+ */
+final class ReactivePooledLoSequence {
+
+    private final Mono<Long> nextValue;
+    private final int incrementSize;
+    private final AtomicReference<Block> current = new AtomicReference<>();
+    private final AtomicReference<Refill> refill = new AtomicReference<>();
+
+    ReactivePooledLoSequence(Mono<Long> nextValue, int incrementSize) {
+        if (incrementSize < 1) {
+            throw new IllegalArgumentException("increment size 는 1 이상이어야 합니다. incrementSize=" + incrementSize);
+        }
+        this.nextValue = nextValue;
+        this.incrementSize = incrementSize;
+    }
+
+    Mono<Long> next() {
+        return Mono.defer(() -> {
+            Block block = current.get();
+            if (block != null) {
+                long value = block.next.getAndIncrement();
+                if (value < block.upperLimit) {
+                    return Mono.just(value);
+                }
+            }
+            return refill(block).then(next());
+        });
+    }
+
+    private Mono<Void> refill(Block exhausted) {
+        while (true) {
+            Refill pending = refill.get();
+            // 같은 블록의 소진으로 시작된 조회가 있으면 그 결과를 기다린다.
+            if (pending != null && pending.exhausted == exhausted) {
+                return pending.result;
+            }
+            // 다른 요청이 이미 새 블록을 할당했으면 그대로 사용
+            if (current.get() != exhausted) {
+                return Mono.empty();
+            }
+            Refill created = new Refill(exhausted);
+            if (refill.compareAndSet(pending, created)) {
+                return created.result;
+            }
+        }
+    }
+
+    private final class Refill {
+        private final Block exhausted;
+        private final Mono<Void> result;
+
+        private Refill(Block exhausted) {
+            this.exhausted = exhausted;
+            this.result = nextValue
+                    .doOnNext(lo -> current.set(new Block(lo, lo + incrementSize)))
+                    // 조회 실패는 캐시하지 않는다. (다음 요청이 다시 조회)
+                    .doOnError(e -> refill.compareAndSet(this, null))
+                    .then()
+                    .cache();
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long upperLimit;
+
+        private Block(long lo, long upperLimit) {
+            this.next = new AtomicLong(lo);
+            this.upperLimit = upperLimit;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package hello.springtx.reconcile;
+
+import java.util.List;
+
+/**
+ * 대기 주문의 결제를 다시 시도한다.
+ * 결제가 승인된 주문 id 만 반환한다. 반환하지 않은 주문은 대기 상태로 남는다.
+ * 트랜젝션 밖에서 호출하므로 응답을 기다리는 동안 커넥션을 보유하지 않는다.
+ * 예외가 발생하면 해당 청크는 반영하지 않고 파티션은 마지막 체크포인트에서 멈춘다.
+ */
+@FunctionalInterface
+public interface PaymentApprover {
+
+    List<Long> approve(List<Long> pendingOrderIds);
+}
@@ -0,0 +1,57 @@
+package hello.springtx.reconcile;
+
+import hello.springtx.id.PooledSequenceGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * 대사 작업의 파티션별 진행 위치
+ * 청크 update 와 같은 트랜젝션에서 갱신하므로, 재시작하면 마지막으로 커밋된 청크 다음부터 처리한다.
+ */
+@Entity
+@Table(name = "reconciliation_checkpoint",
+        uniqueConstraints = @UniqueConstraint(name = "uk_checkpoint_job_partition", columnNames = {"jobName", "partitionNo"}))
+@Getter
+@Setter
+@ToString
+public class ReconciliationCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "checkpoint_id_generator")
+    @GenericGenerator(name = "checkpoint_id_generator", strategy = PooledSequenceGenerator.STRATEGY, parameters = {
+            @Parameter(name = "sequence_name", value = "reconciliation_checkpoint_seq"),
+            @Parameter(name = "increment_size", value = "50")})
+    private Long id;
+
+    private String jobName;
+    private int partitionNo;
+
+    // 처리 범위 (rangeStart, rangeEnd 포함)
+    private long rangeStart;
+    private long rangeEnd;
+
+    // 마지막으로 커밋된 청크의 마지막 주문 id
+    private long lastProcessedId;
+    private boolean completed;
+
+    public ReconciliationCheckpoint() {
+    }
+
+    public ReconciliationCheckpoint(String jobName, int partitionNo, long rangeStart, long rangeEnd) {
+        this.jobName = jobName;
+        this.partitionNo = partitionNo;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.lastProcessedId = rangeStart - 1;
+    }
+}
@@ -0,0 +1,21 @@
+package hello.springtx.reconcile;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, Long> {
+
+    List<ReconciliationCheckpoint> findByJobNameOrderByPartitionNo(String jobName);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update ReconciliationCheckpoint c set c.lastProcessedId = :lastProcessedId, c.completed = :completed where c.id = :id")
+    int advance(@Param("id") Long id, @Param("lastProcessedId") long lastProcessedId, @Param("completed") boolean completed);
+
+    @Modifying
+    @Query("delete from ReconciliationCheckpoint c where c.jobName = :jobName")
+    int deleteByJobName(@Param("jobName") String jobName);
+}
@@ -0,0 +1,215 @@
+package hello.springtx.reconcile;
+
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderRepository.OrderUsername;
+import hello.springtx.outbox.OutboxEvent;
+import hello.springtx.outbox.OutboxWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 대기(잔고부족) 주문 결제 상태 대사
+ *
+ * 1. 대기 주문의 id 범위(min ~ max)를 partitions 개로 나눈다.
+ * 2. 파티션을 threads 개의 스레드에서 병렬로 처리한다.
+ * 3. 파티션 안에서는 chunkSize 단위로 처리한다.
+ *    - 대기 주문 id 조회 (엔티티 로딩, dirty checking 없음)
+ *    - PaymentApprover 로 재결제 : 외부 호출이므로 트랜젝션 밖에서 호출한다. (커넥션을 보유하지 않음)
+ *    - 트랜젝션 1개로 다음을 함께 커밋
+ *      update orders set pay_status='완료' where id in (...) and pay_status='대기'
+ *      결제 완료 이벤트(outbox) 저장 (outbox.relay.enabled=true)
+ *      체크포인트 갱신
+ *
+ * 완료되지 않은 체크포인트가 있으면 새로 나누지 않고 그 위치부터 이어서 처리한다.
+ * 동시에 사용하는 커넥션 수는 threads 개이므로 커넥션 풀 크기보다 작게 설정한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReconciliationEngine {
+
+    static final String PENDING = "대기";
+    static final String COMPLETED = "완료";
+
+    private final OrderRepository orderRepository;
+    private final ReconciliationCheckpointRepository checkpointRepository;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${reconcile.partitions:4}")
+    private int partitions;
+    @Value("${reconcile.threads:4}")
+    private int threads;
+    @Value("${reconcile.chunk-size:1000}")
+    private int chunkSize;
+
+    public ReconciliationReport reconcile(String jobName, PaymentApprover approver) {
+        long startTime = System.currentTimeMillis();
+        List<ReconciliationCheckpoint> checkpoints = checkpointRepository.findByJobNameOrderByPartitionNo(jobName);
+        boolean resumed = checkpoints.stream().anyMatch(c -> !c.isCompleted());
+        if (!resumed) {
+            checkpoints = createCheckpoints(jobName);
+        }
+
+        List<ReconciliationCheckpoint> remaining = new ArrayList<>();
+        for (ReconciliationCheckpoint checkpoint : checkpoints) {
+            if (!checkpoint.isCompleted()) {
+                remaining.add(checkpoint);
+            }
+        }
+        log.info("reconcile 시작 job={} resumed={} partitions={}", jobName, resumed, remaining.size());
+
+        Progress progress = new Progress();
+        runPartitions(jobName, remaining, approver, progress);
+
+        ReconciliationReport report = new ReconciliationReport(jobName, remaining.size(), resumed,
+                progress.chunks.sum(), progress.scanned.sum(), progress.approved.sum(),
+                System.currentTimeMillis() - startTime);
+        log.info("reconcile 완료 {}", report);
+        return report;
+    }
+
+    /**
+     * 이전 실행의 체크포인트를 지우고 현재 대기 주문의 id 범위로 새 파티션을 만든다.
+     */
+    private List<ReconciliationCheckpoint> createCheckpoints(String jobName) {
+        return transactionTemplate.execute(status -> {
+            checkpointRepository.deleteByJobName(jobName);
+            Long min = orderRepository.findMinIdByPayStatus(PENDING);
+            Long max = orderRepository.findMaxIdByPayStatus(PENDING);
+            List<ReconciliationCheckpoint> created = new ArrayList<>();
+            if (min == null) {
+                return created;
+            }
+            long span = (max - min + partitions) / partitions; // 올림
+            int partitionNo = 0;
+            for (long start = min; start <= max; start += span) {
+                created.add(new ReconciliationCheckpoint(jobName, partitionNo++, start, Math.min(start + span - 1, max)));
+            }
+            return checkpointRepository.saveAll(created);
+        });
+    }
+
+    private void runPartitions(String jobName, List<ReconciliationCheckpoint> checkpoints,
+                               PaymentApprover approver, Progress progress) {
+        if (checkpoints.isEmpty()) {
+            return;
+        }
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, checkpoints.size()), r -> {
+            Thread thread = new Thread(r, "reconcile-" + jobName + "-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(checkpoints.size());
+            for (ReconciliationCheckpoint checkpoint : checkpoints) {
+                futures.add(executor.submit(() -> runPartition(checkpoint, approver, progress)));
+            }
+            // 모든 파티션이 끝날 때까지 기다린 후 첫번째 실패를 던진다.
+            RuntimeException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new IllegalStateException("reconcile 실패 job=" + jobName, e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("reconcile 중단 job=" + jobName, e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runPartition(ReconciliationCheckpoint checkpoint, PaymentApprover approver, Progress progress) {
+        long cursor = checkpoint.getLastProcessedId();
+        long rangeEnd = checkpoint.getRangeEnd();
+        while (true) {
+            List<Long> ids = orderRepository.findIdsByPayStatusInRange(
+                    PENDING, cursor, rangeEnd, PageRequest.of(0, chunkSize));
+            boolean done = ids.size() < chunkSize;
+            long lastId = done ? rangeEnd : ids.get(ids.size() - 1);
+            List<Long> approved = ids.isEmpty() ? ids : approver.approve(ids);
+
+            ChunkResult chunk = transactionTemplate.execute(status -> {
+                int updated = approved.isEmpty() ? 0 : complete(approved);
+                checkpointRepository.advance(checkpoint.getId(), lastId, done);
+                return new ChunkResult(ids.size(), updated, lastId, done);
+            });
+
+            // 커밋된 청크만 집계
+            progress.chunks.increment();
+            progress.scanned.add(chunk.scanned);
+            progress.approved.add(chunk.updated);
+            if (chunk.done) {
+                return;
+            }
+            cursor = chunk.lastId;
+        }
+    }
+
+    /**
+     * 승인된 주문 중 아직 대기 상태인 주문을 완료로 변경하고 결제 완료 이벤트를 저장한다.
+     * 조회와 update 사이에 다른 트랜젝션이 상태를 바꾸면 이벤트와 주문이 어긋나므로 청크를 롤백한다.
+     */
+    private int complete(List<Long> approved) {
+        List<OrderUsername> pending = orderRepository.findUsernamesByIdInAndPayStatus(approved, PENDING);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(pending.size());
+        List<OutboxEvent> events = new ArrayList<>(pending.size());
+        for (OrderUsername order : pending) {
+            ids.add(order.getId());
+            if (outboxWriter.isEnabled()) {
+                events.add(OutboxEvent.paymentOf(order.getId(), order.getUsername(), COMPLETED));
+            }
+        }
+        int updated = orderRepository.updatePayStatus(ids, PENDING, COMPLETED);
+        if (updated != ids.size()) {
+            throw new IllegalStateException("대기 주문 상태가 변경되었습니다. expected=" + ids.size() + " updated=" + updated);
+        }
+        outboxWriter.writeAll(events);
+        return updated;
+    }
+
+    private static class ChunkResult {
+        final int scanned;
+        final int updated;
+        final long lastId;
+        final boolean done;
+
+        ChunkResult(int scanned, int updated, long lastId, boolean done) {
+            this.scanned = scanned;
+            this.updated = updated;
+            this.lastId = lastId;
+            this.done = done;
+        }
+    }
+
+    private static class Progress {
+        final LongAdder chunks = new LongAdder();
+        final LongAdder scanned = new LongAdder();
+        final LongAdder approved = new LongAdder();
+    }
+}
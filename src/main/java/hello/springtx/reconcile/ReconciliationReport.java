@@ -0,0 +1,32 @@
+package hello.springtx.reconcile;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 대사 작업 결과
+ */
+@Getter
+@ToString
+public class ReconciliationReport {
+
+    private final String jobName;
+    private final int partitions;
+    // 이전 실행의 체크포인트에서 이어서 처리했는지
+    private final boolean resumed;
+    private final long chunks;
+    private final long scanned;
+    private final long approved;
+    private final long elapsedMillis;
+
+    public ReconciliationReport(String jobName, int partitions, boolean resumed,
+                                long chunks, long scanned, long approved, long elapsedMillis) {
+        this.jobName = jobName;
+        this.partitions = partitions;
+        this.resumed = resumed;
+        this.chunks = chunks;
+        this.scanned = scanned;
+        this.approved = approved;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
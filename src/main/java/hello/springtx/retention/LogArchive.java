@@ -0,0 +1,27 @@
+package hello.springtx.retention;
+
+import lombok.Getter;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 보관 기간이 지난 Log 보관 테이블 (LogRetentionJob 이 insert ... select 로 옮긴다)
+ */
+@Entity
+@Table(name = "log_archive", indexes = @Index(name = "idx_log_archive_bucket", columnList = "bucket"))
+@Getter
+public class LogArchive {
+
+    @Id
+    private Long id;
+    private String message;
+    private LocalDateTime createdAt;
+    private int bucket;
+
+    protected LogArchive() {
+    }
+}
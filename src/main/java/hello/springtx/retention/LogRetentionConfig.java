@@ -0,0 +1,24 @@
+package hello.springtx.retention;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * log.retention.enabled=true 이면 log.retention.cron 마다 LogRetentionJob.purgeExpired() 실행
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "log.retention.enabled", havingValue = "true")
+public class LogRetentionConfig {
+
+    private final LogRetentionJob logRetentionJob;
+
+    @Scheduled(cron = "${log.retention.cron:0 10 0 * * *}")
+    public void purgeExpired() {
+        logRetentionJob.purgeExpired();
+    }
+}
@@ -0,0 +1,114 @@
+package hello.springtx.retention;
+
+import hello.springtx.propagation.Log;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 보관 기간(log.retention.days)이 지난 Log 를 bucket(일) 단위로 정리한다.
+ *
+ * 파티션 drop 이나 일별 테이블 drop 은 이 코드에서 사용할 수 없다.
+ * H2 는 테이블 파티션을 지원하지 않고, Log 는 JPA 엔티티 하나(log 테이블)로 매핑되어 있어서
+ * 일별 테이블(log_yyyyMMdd + view)로 나누면 Log 를 저장/조회하는 모든 코드가 네이티브 SQL 로 바뀌어야 하기 때문이다.
+ * 그래서 bucket 단위 drop 대신 청크 삭제를 대체 방식으로 사용한다. bucket 컬럼을 파티션 키로 사용하고 bucket 하나를 chunkSize 행씩 나누어 정리한다.
+ *   1. select id from log where bucket = ? (chunkSize 건, idx_log_bucket_created)
+ *   2. insert into log_archive select ... from log where id in (...) (log.retention.archive=true)
+ *   3. delete from log where id in (...)
+ * 청크마다 트랜젝션 하나를 사용하므로 하루치 로그가 많아도 락을 오래 잡거나 undo 가 한번에 커지지 않는다.
+ * 트랜젝션 하나가 락을 잡는 시간은 chunkSize 에 비례하고 bucket 크기와는 관계없다. (RetentionReport.longestChunkMillis)
+ * 전체 정리 비용은 삭제하는 행 수에 비례하며, bucket 을 delete 1번으로 지우는 것과 비슷하다. (LogRetentionBenchmark)
+ * 파티션을 지원하는 DB 로 바꾸면 bucket 파티션 detach/drop 으로 바꾼다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogRetentionJob {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${log.retention.days:30}")
+    private int retentionDays;
+    @Value("${log.retention.archive:true}")
+    private boolean archive;
+    @Value("${log.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    public RetentionReport purgeExpired() {
+        return purgeBefore(LocalDate.now().minusDays(retentionDays));
+    }
+
+    /**
+     * cutoff 날짜 이전 bucket 을 모두 정리한다. (cutoff 당일은 남김)
+     */
+    public RetentionReport purgeBefore(LocalDate cutoff) {
+        List<Integer> buckets = expiredBuckets(Log.bucketOf(cutoff));
+        long archived = 0;
+        long deleted = 0;
+        long chunks = 0;
+        long longestChunkNanos = 0;
+        for (Integer bucket : buckets) {
+            long bucketArchived = 0;
+            long bucketDeleted = 0;
+            while (true) {
+                long start = System.nanoTime();
+                long[] result = transactionTemplate.execute(status -> purgeChunk(bucket));
+                longestChunkNanos = Math.max(longestChunkNanos, System.nanoTime() - start);
+                if (result[1] == 0) {
+                    break;
+                }
+                chunks++;
+                bucketArchived += result[0];
+                bucketDeleted += result[1];
+                if (result[1] < chunkSize) {
+                    break;
+                }
+            }
+            archived += bucketArchived;
+            deleted += bucketDeleted;
+            log.info("log bucket 정리 bucket={} archived={} deleted={}", bucket, bucketArchived, bucketDeleted);
+        }
+        return new RetentionReport(buckets, chunks, archived, deleted, TimeUnit.NANOSECONDS.toMillis(longestChunkNanos));
+    }
+
+    private List<Integer> expiredBuckets(int cutoffBucket) {
+        List<Integer> buckets = transactionTemplate.execute(status -> entityManager.createQuery(
+                        "select distinct l.bucket from Log l where l.bucket < :cutoff order by l.bucket", Integer.class)
+                .setParameter("cutoff", cutoffBucket)
+                .getResultList());
+        return buckets == null ? new ArrayList<>() : buckets;
+    }
+
+    /**
+     * bucket 의 로그 chunkSize 건을 보관 테이블로 옮기고 삭제한다.
+     */
+    private long[] purgeChunk(int bucket) {
+        List<Long> ids = entityManager.createQuery("select l.Id from Log l where l.bucket = :bucket", Long.class)
+                .setParameter("bucket", bucket)
+                .setMaxResults(chunkSize)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return new long[]{0, 0};
+        }
+        int archived = 0;
+        if (archive) {
+            archived = entityManager.createNativeQuery("insert into log_archive (id, message, created_at, bucket)" +
+                            " select id, message, created_at, bucket from log where id in (:ids)")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        int deleted = entityManager.createQuery("delete from Log l where l.Id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        return new long[]{archived, deleted};
+    }
+}
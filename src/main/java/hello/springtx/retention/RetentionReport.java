@@ -0,0 +1,31 @@
+package hello.springtx.retention;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 보관 기간 정리 결과
+ */
+@Getter
+@ToString
+public class RetentionReport {
+
+    // 정리한 bucket (yyyyMMdd)
+    private final List<Integer> buckets;
+    // 사용한 트랜젝션 수 (청크 수)
+    private final long chunks;
+    private final long archivedRows;
+    private final long deletedRows;
+    // 가장 오래 걸린 청크 트랜젝션 시간 (락을 잡고 있는 최대 시간, chunkSize 에 비례)
+    private final long longestChunkMillis;
+
+    public RetentionReport(List<Integer> buckets, long chunks, long archivedRows, long deletedRows, long longestChunkMillis) {
+        this.buckets = buckets;
+        this.chunks = chunks;
+        this.archivedRows = archivedRows;
+        this.deletedRows = deletedRows;
+        this.longestChunkMillis = longestChunkMillis;
+    }
+}
@@ -0,0 +1,48 @@
+package hello.springtx.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * datasource.routing.enabled=true 이면
+ * PRIMARY (spring.datasource.*) 와 REPLICA (datasource.replica.*) 두 개의 커넥션 풀을 만들고
+ * 트랜젝션의 readOnly 여부로 라우팅한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 @Value("${datasource.replica.url}") String replicaUrl,
+                                 @Value("${datasource.replica.username:sa}") String replicaUsername,
+                                 @Value("${datasource.replica.password:}") String replicaPassword,
+                                 @Value("${datasource.routing.replica-lag-guard-millis:0}") long replicaLagGuardMillis) {
+        DataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        DataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaLagGuardMillis);
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primary,
+                ReadWriteRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        // readOnly 여부가 정해진 후(첫 SQL 실행 시점)에 커넥션을 가져오도록 지연
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,62 @@
+package hello.springtx.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Transactional(readOnly = true) 트랜젝션은 REPLICA, 나머지는 PRIMARY 로 보낸다.
+ *
+ * 트랜젝션의 readOnly 여부는 트랜젝션 시작 후에 설정되므로
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 실행 시점에 커넥션을 결정해야 한다.
+ *
+ * replicaLagGuardMillis : 마지막 쓰기 트랜젝션 이후 이 시간 동안은 읽기도 PRIMARY 로 보낸다. (복제 지연 대비, 0 이면 사용 X)
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final long replicaLagGuardMillis;
+    private final AtomicLong lastWriteMillis = new AtomicLong();
+
+    private final LongAdder primaryRoutes = new LongAdder();
+    private final LongAdder replicaRoutes = new LongAdder();
+
+    public ReadWriteRoutingDataSource(long replicaLagGuardMillis) {
+        this.replicaLagGuardMillis = replicaLagGuardMillis;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                lastWriteMillis.set(System.currentTimeMillis());
+            }
+            primaryRoutes.increment();
+            return Route.PRIMARY;
+        }
+        if (replicaLagGuardMillis > 0
+                && System.currentTimeMillis() - lastWriteMillis.get() < replicaLagGuardMillis) {
+            log.debug("최근 쓰기 트랜젝션이 있어서 읽기 트랜젝션을 PRIMARY 로 보냅니다.");
+            primaryRoutes.increment();
+            return Route.PRIMARY;
+        }
+        replicaRoutes.increment();
+        return Route.REPLICA;
+    }
+
+    public long getPrimaryRouteCount() {
+        return primaryRoutes.sum();
+    }
+
+    public long getReplicaRouteCount() {
+        return replicaRoutes.sum();
+    }
+}
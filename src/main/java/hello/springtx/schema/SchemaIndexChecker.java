@@ -0,0 +1,293 @@
+package hello.springtx.schema;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.NamedQuery;
+import javax.persistence.metamodel.EntityType;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 애플리케이션 시작 시점에 리포지토리 조회 쿼리의 조건 컬럼 인덱스를 확인한다.
+ * 조건 컬럼 중 어느 것도 인덱스의 첫번째 컬럼이 아니면 full scan 이 되므로 경고 로그를 남긴다.
+ *
+ * 확인하는 쿼리
+ * - Spring Data 리포지토리의 쿼리 메서드 (@Query, 메서드 이름으로 만드는 쿼리)
+ * - 엔티티의 @NamedQuery (EntityManager 를 직접 사용하는 리포지토리는 조회 쿼리를 @NamedQuery 로 선언한다.)
+ * 메서드 안에서 createQuery 로 만드는 JPQL 은 시작 시점에 알 수 없으므로 확인하지 않는다.
+ *
+ * JPQL 은 파싱하지 않고 정규식으로 조건 컬럼만 찾는다. 다음은 확인하지 않는다.
+ * - from 절의 첫번째 엔티티(메인 엔티티) 외의 엔티티 : join, 서브쿼리, 두번째 이후 from 엔티티의 조건
+ * - alias 없이 쓴 속성 (from Member where username = ...)
+ * - 연관관계 경로(m.team.name), 임베디드 속성
+ * 함수로 감싼 조건 컬럼(lower(m.username))은 인덱스를 사용할 수 없으므로 인덱스가 없는 컬럼으로 본다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaIndexChecker {
+
+    private static final Pattern MAIN_ENTITY = Pattern.compile(
+            "\\b(?:from|update)\\s+([\\w.]+)\\s+(?:as\\s+)?(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE = Pattern.compile(
+            "\\bwhere\\b(.*?)(?:\\border\\s+by\\b|\\bgroup\\s+by\\b|$)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // alias.property, 앞에 "함수(" 가 있으면 함수로 감싼 컬럼
+    private static final Pattern PROPERTY = Pattern.compile("(?:\\b(\\w+)\\s*\\(\\s*)?\\b(\\w+)\\.(\\w+)\\b");
+    // "(" 앞에 와도 함수가 아닌 키워드
+    private static final Set<String> KEYWORDS = Set.of("and", "or", "not", "in", "exists", "where");
+
+    private final ApplicationContext applicationContext;
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void check() {
+        for (String lookup : findUnindexedLookups()) {
+            log.warn("조회 조건 컬럼에 인덱스가 없습니다. full table scan 이 발생합니다. {}", lookup);
+        }
+    }
+
+    /**
+     * 조건 컬럼에 인덱스가 없는 리포지토리 쿼리 목록 : "{쿼리} : {table}[{조건 컬럼}]"
+     */
+    public List<String> findUnindexedLookups() {
+        List<Lookup> lookups = new ArrayList<>();
+        collectRepositoryQueries(lookups);
+        collectNamedQueries(lookups);
+        return unindexed(lookups);
+    }
+
+    /**
+     * JPQL 하나의 조건 컬럼 인덱스 확인
+     */
+    public Optional<String> findUnindexedLookup(String jpql) {
+        List<Lookup> lookups = new ArrayList<>();
+        addJpql(lookups, "jpql", jpql);
+        return unindexed(lookups).stream().findFirst();
+    }
+
+    private List<String> unindexed(List<Lookup> lookups) {
+        List<String> unindexed = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            IndexCache indexes = new IndexCache(connection.getMetaData());
+            for (Lookup lookup : lookups) {
+                if (!indexes.hasLeadingIndex(lookup.table, lookup.columns)) {
+                    unindexed.add(lookup.toString());
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("인덱스 확인 실패", e);
+        }
+        return unindexed;
+    }
+
+    private void collectRepositoryQueries(List<Lookup> lookups) {
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            Optional<RepositoryInformation> information = repositories.getRepositoryInformationFor(domainType);
+            if (information.isEmpty()) {
+                continue;
+            }
+            for (Method method : information.get().getQueryMethods()) {
+                String source = information.get().getRepositoryInterface().getSimpleName() + "." + method.getName();
+                Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+                if (query != null) {
+                    if (!query.nativeQuery()) {
+                        addJpql(lookups, source, query.value());
+                    }
+                } else {
+                    addDerived(lookups, source, method, domainType);
+                }
+            }
+        }
+    }
+
+    private void addDerived(List<Lookup> lookups, String source, Method method, Class<?> domainType) {
+        PartTree tree;
+        try {
+            tree = new PartTree(method.getName(), domainType);
+        } catch (RuntimeException e) {
+            log.debug("쿼리 메서드 해석 실패 method={}", source, e);
+            return;
+        }
+        AbstractEntityPersister persister = persister(domainType);
+        Set<String> columns = new LinkedHashSet<>();
+        for (Part part : tree.getParts()) {
+            column(persister, part.getProperty().getSegment()).ifPresent(columns::add);
+        }
+        if (!columns.isEmpty()) {
+            lookups.add(new Lookup(source, persister.getTableName(), columns, Set.of()));
+        }
+    }
+
+    private void collectNamedQueries(List<Lookup> lookups) {
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            for (NamedQuery namedQuery : entity.getJavaType().getAnnotationsByType(NamedQuery.class)) {
+                addJpql(lookups, namedQuery.name(), namedQuery.query());
+            }
+        }
+    }
+
+    private void addJpql(List<Lookup> lookups, String source, String jpql) {
+        Matcher main = MAIN_ENTITY.matcher(jpql);
+        Matcher where = WHERE.matcher(jpql);
+        if (!main.find() || !where.find()) {
+            return;
+        }
+        Optional<Class<?>> entityClass = entityClass(main.group(1));
+        if (entityClass.isEmpty()) {
+            return;
+        }
+        AbstractEntityPersister persister = persister(entityClass.get());
+        String alias = main.group(2);
+        Matcher property = PROPERTY.matcher(where.group(1));
+        Set<String> columns = new LinkedHashSet<>();
+        Set<String> wrapped = new LinkedHashSet<>();
+        while (property.find()) {
+            if (!property.group(2).equals(alias)) {
+                continue;
+            }
+            Optional<String> column = column(persister, property.group(3));
+            if (column.isPresent()) {
+                (isFunction(property.group(1)) ? wrapped : columns).add(column.get());
+            }
+        }
+        wrapped.removeAll(columns);
+        if (!columns.isEmpty() || !wrapped.isEmpty()) {
+            lookups.add(new Lookup(source, persister.getTableName(), columns, wrapped));
+        }
+    }
+
+    private static boolean isFunction(String name) {
+        return name != null && !KEYWORDS.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    private Optional<Class<?>> entityClass(String name) {
+        for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+            if (entity.getName().equals(name) || entity.getJavaType().getName().equals(name)) {
+                return Optional.of(entity.getJavaType());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private AbstractEntityPersister persister(Class<?> entityClass) {
+        return (AbstractEntityPersister) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(entityClass);
+    }
+
+    private Optional<String> column(AbstractEntityPersister persister, String property) {
+        if (property.equals(persister.getIdentifierPropertyName())) {
+            return Optional.of(persister.getIdentifierColumnNames()[0]);
+        }
+        try {
+            String[] columns = persister.getPropertyColumnNames(property);
+            return columns.length == 0 ? Optional.empty() : Optional.of(columns[0]);
+        } catch (RuntimeException e) {
+            // 연관관계 경로, 임베디드 등 컬럼으로 바로 바꿀 수 없는 속성
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 쿼리 하나의 조회 조건 : 테이블과 where 절 컬럼 (wrapped : 함수로 감싼 컬럼)
+     */
+    private static class Lookup {
+
+        private final String source;
+        private final String table;
+        private final Set<String> columns;
+        private final Set<String> wrapped;
+
+        Lookup(String source, String table, Set<String> columns, Set<String> wrapped) {
+            this.source = source;
+            this.table = table;
+            this.columns = columns;
+            this.wrapped = wrapped;
+        }
+
+        @Override
+        public String toString() {
+            return source + " : " + table + columns + (wrapped.isEmpty() ? "" : " function" + wrapped);
+        }
+    }
+
+    /**
+     * 테이블별 인덱스 첫번째 컬럼 (DatabaseMetaData 조회 결과 캐시)
+     */
+    private static class IndexCache {
+
+        private final DatabaseMetaData metaData;
+        private final Map<String, Set<String>> leadingColumns = new HashMap<>();
+
+        IndexCache(DatabaseMetaData metaData) {
+            this.metaData = metaData;
+        }
+
+        boolean hasLeadingIndex(String table, Set<String> columns) throws SQLException {
+            Set<String> leading = leadingColumns.get(table);
+            if (leading == null) {
+                leading = load(table);
+                leadingColumns.put(table, leading);
+            }
+            for (String column : columns) {
+                if (leading.contains(column.toLowerCase(Locale.ROOT))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Set<String> load(String table) throws SQLException {
+            Set<String> leading = new HashSet<>();
+            try (ResultSet rs = metaData.getIndexInfo(null, null, identifier(table), false, true)) {
+                while (rs.next()) {
+                    String column = rs.getString("COLUMN_NAME");
+                    if (rs.getShort("ORDINAL_POSITION") == 1 && column != null) {
+                        leading.add(column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return leading;
+        }
+
+        private String identifier(String name) throws SQLException {
+            if (metaData.storesUpperCaseIdentifiers()) {
+                return name.toUpperCase(Locale.ROOT);
+            }
+            if (metaData.storesLowerCaseIdentifiers()) {
+                return name.toLowerCase(Locale.ROOT);
+            }
+            return name;
+        }
+    }
+}
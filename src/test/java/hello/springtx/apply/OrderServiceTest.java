@@ -3,12 +3,16 @@ package hello.springtx.apply;
 import hello.springtx.order.NotEnoughMoneyException;
 import hello.springtx.order.Order;
 import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderResult;
 import hello.springtx.order.OrderService;
+import hello.springtx.outbox.OutboxRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -21,6 +25,8 @@ public class OrderServiceTest {
     OrderService orderService;
     @Autowired
     OrderRepository orderRepository;
+    @Autowired
+    OutboxRepository outboxRepository;
 
     // 참고
     // 메모리 DB 를통해 테스트를 수행하면 테이블 자동 생성 옵션이 활성화된다.
@@ -71,6 +77,71 @@ public class OrderServiceTest {
         assertThat(findOrder.getPayStatus()).isEqualTo("대기");
     }
 
+    @Test
+    void orderAll() {
+        // given : chunk 크기(100) 를 넘는 주문
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            Order order = new Order();
+            order.setUsername(i % 10 == 0 ? "예외" : i % 10 == 1 ? "잔고부족" : "정상");
+            orders.add(order);
+        }
+
+        // when
+        List<OrderResult> results = orderService.orderAll(orders);
+
+        // then : 주문별 결과는 order() 와 같은 규칙
+        assertThat(results).hasSize(250);
+        assertThat(results).filteredOn(r -> r.getStatus() == OrderResult.Status.ROLLED_BACK).hasSize(25)
+                .allMatch(r -> r.getOrderId() == null);
+        assertThat(results).filteredOn(r -> r.getStatus() == OrderResult.Status.PENDING).hasSize(25)
+                .allMatch(r -> orderRepository.findById(r.getOrderId()).get().getPayStatus().equals("대기"));
+        assertThat(results).filteredOn(r -> r.getStatus() == OrderResult.Status.COMPLETED).hasSize(200)
+                .allMatch(r -> orderRepository.findById(r.getOrderId()).get().getPayStatus().equals("완료"));
+    }
+
+    @Test
+    void orderAll_chunkRollback() {
+        // given : flush 에 실패하는 주문(username 길이 초과)이 있는 chunk
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = new Order();
+            order.setUsername(i == 3 ? "잔고부족" : "정상");
+            orders.add(order);
+        }
+        Order tooLong = new Order();
+        tooLong.setUsername("정상".repeat(200));
+        orders.add(tooLong);
+
+        // when
+        List<OrderResult> results = orderService.orderAll(orders);
+
+        // then : chunk 전체 롤백, 주문의 id 와 payStatus 는 호출 전 값
+        assertThat(results).hasSize(11).allMatch(r -> r.getStatus() == OrderResult.Status.ROLLED_BACK);
+        assertThat(orders).allMatch(o -> o.getId() == null && o.getPayStatus() == null);
+
+        // 같은 Order 로 다시 호출하면 새 주문으로 저장된다.
+        orders.remove(tooLong);
+        List<OrderResult> retried = orderService.orderAll(orders);
+        assertThat(retried).filteredOn(r -> r.getStatus() == OrderResult.Status.PENDING).hasSize(1);
+        assertThat(retried).filteredOn(r -> r.getStatus() == OrderResult.Status.COMPLETED).hasSize(9)
+                .allMatch(r -> orderRepository.findById(r.getOrderId()).get().getPayStatus().equals("완료"));
+    }
+
+    @Test
+    void outboxDisabled() throws NotEnoughMoneyException {
+        // given : outbox.relay.enabled=false (기본값)
+        long before = outboxRepository.count();
+        Order order = new Order();
+        order.setUsername("정상");
+
+        // when
+        orderService.order(order);
+
+        // then : relay 가 없으므로 outbox 이벤트를 저장하지 않는다.
+        assertThat(outboxRepository.count()).isEqualTo(before);
+    }
+
 }
 // 정리
 // NotEnoughMoneyException 은 시스템에 문제가 발생한 것이 아니다.
@@ -0,0 +1,156 @@
+package hello.springtx.engine;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {"order.engine.workers=0", "order.engine.queue-capacity=4", "order.engine.admission=REJECT"})
+class OrderProcessingEngineTest {
+
+    @Autowired
+    OrderProcessingEngine engine;
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Test
+    void workersSizedToPool() {
+        // Hikari 기본 풀 크기 10 - 예비 1
+        assertThat(engine.getWorkers()).isEqualTo(9);
+    }
+
+    @Test
+    void submit() throws Exception {
+        // given
+        Order complete = newOrder("정상");
+        Order pending = newOrder("잔고부족");
+        Order error = newOrder("예외");
+
+        // when
+        OrderResult completeResult = engine.submit(complete).get(5, TimeUnit.SECONDS);
+        OrderResult pendingResult = engine.submit(pending).get(5, TimeUnit.SECONDS);
+        OrderResult errorResult = engine.submit(error).get(5, TimeUnit.SECONDS);
+
+        // then : order() 와 같은 커밋 / 롤백 규칙
+        assertThat(completeResult.getStatus()).isEqualTo(OrderResult.Status.COMPLETED);
+        assertThat(orderRepository.findById(complete.getId()).get().getPayStatus()).isEqualTo("완료");
+        assertThat(pendingResult.getStatus()).isEqualTo(OrderResult.Status.PENDING);
+        assertThat(orderRepository.findById(pending.getId()).get().getPayStatus()).isEqualTo("대기");
+        assertThat(errorResult.getStatus()).isEqualTo(OrderResult.Status.ROLLED_BACK);
+        assertThat(orderRepository.findById(error.getId())).isEmpty();
+    }
+
+    @Test
+    void concurrentOrders() {
+        // given : 큐 크기를 넘지 않도록 worker 수 만큼씩 제출
+        List<OrderResult> results = new ArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            List<CompletableFuture<OrderResult>> futures = new ArrayList<>();
+            for (int i = 0; i < engine.getWorkers(); i++) {
+                futures.add(engine.submit(newOrder(i % 3 == 0 ? "잔고부족" : "정상")));
+            }
+            futures.forEach(future -> results.add(future.join()));
+        }
+
+        // then
+        assertThat(results).hasSize(20 * engine.getWorkers())
+                .allMatch(r -> r.getStatus() != OrderResult.Status.ROLLED_BACK)
+                .allMatch(r -> orderRepository.existsById(r.getOrderId()));
+    }
+
+    @Test
+    void rejectWhenFull() throws Exception {
+        // given : worker 와 큐를 모두 채운다.
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<OrderResult>> blocked = new ArrayList<>();
+        for (int i = 0; i < engine.getWorkers() + 4; i++) {
+            blocked.add(engine.submitTask(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+        }
+        long rejected = engine.getRejectedCount();
+
+        // when
+        CompletableFuture<OrderResult> future = engine.submit(newOrder("정상"));
+
+        // then : 주문을 받지 않고 바로 실패
+        assertThat(future).isCompletedExceptionally();
+        assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(OrderRejectedException.class);
+        assertThat(engine.getRejectedCount()).isEqualTo(rejected + 1);
+
+        // 자리가 나면 다시 받는다.
+        release.countDown();
+        CompletableFuture.allOf(blocked.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertThat(engine.submit(newOrder("정상")).get(5, TimeUnit.SECONDS).getStatus())
+                .isEqualTo(OrderResult.Status.COMPLETED);
+    }
+
+    @Test
+    void saturation() throws Exception {
+        // given : 제출 스레드 8개가 끝나자마자 다시 제출 (worker 가 자리를 반환한 직후 다음 작업을 받기 전)
+        int submitters = 8;
+        int perSubmitter = 2000;
+        ExecutorService pool = Executors.newFixedThreadPool(submitters);
+        List<Future<List<CompletableFuture<OrderResult>>>> submitted = new ArrayList<>();
+        try {
+            for (int s = 0; s < submitters; s++) {
+                submitted.add(pool.submit(() -> {
+                    List<CompletableFuture<OrderResult>> futures = new ArrayList<>(perSubmitter);
+                    for (int i = 0; i < perSubmitter; i++) {
+                        futures.add(engine.submitTask(() -> null));
+                    }
+                    return futures;
+                }));
+            }
+
+            // when
+            List<CompletableFuture<OrderResult>> futures = new ArrayList<>();
+            for (Future<List<CompletableFuture<OrderResult>>> f : submitted) {
+                // then : submitTask() 가 예외를 던지지 않는다.
+                futures.addAll(f.get(30, TimeUnit.SECONDS));
+            }
+
+            // then : 모두 완료되거나 OrderRejectedException 으로 실패, 자리는 모두 반환
+            for (CompletableFuture<OrderResult> future : futures) {
+                assertThatCode(() -> {
+                    try {
+                        future.join();
+                    } catch (CompletionException e) {
+                        assertThat(e).hasCauseInstanceOf(OrderRejectedException.class);
+                    }
+                }).doesNotThrowAnyException();
+            }
+            assertThat(futures).hasSize(submitters * perSubmitter);
+            assertThat(engine.getInFlightCount()).isZero();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
@@ -0,0 +1,138 @@
+package hello.springtx.engine;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderResult;
+import hello.springtx.propagation.JoinAllResult;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+@SpringBootTest(properties = {"order.engine.threads=VIRTUAL", "order.engine.queue-capacity=1000", "member.join-all.threads=VIRTUAL"})
+class VirtualThreadModeTest {
+
+    @Autowired
+    OrderProcessingEngine engine;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void fallbackToPlatform() {
+        assumeFalse(VirtualThreads.isSupported(), "JDK 21 미만에서만 확인");
+        assertThat(engine.getThreads()).isEqualTo(OrderProcessingEngine.Threads.PLATFORM);
+        assertThat(memberService.getJoinAllThreads()).isEqualTo(OrderProcessingEngine.Threads.PLATFORM);
+    }
+
+    @Test
+    void ordersOnVirtualThreads() {
+        assumeTrue(VirtualThreads.isSupported(), "가상 스레드는 JDK 21+");
+        assertThat(engine.getThreads()).isEqualTo(OrderProcessingEngine.Threads.VIRTUAL);
+
+        // given : worker 수보다 훨씬 많은 주문을 한번에 제출
+        ConcurrentLinkedQueue<Boolean> virtual = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<OrderResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Order order = new Order();
+            order.setUsername(i % 5 == 0 ? "예외" : i % 5 == 1 ? "잔고부족" : "정상");
+            futures.add(engine.submitTask(() -> {
+                virtual.add(VirtualThreads.isVirtual(Thread.currentThread()));
+                return engine.process(order);
+            }));
+        }
+
+        // then : 커밋 / 롤백 규칙은 PLATFORM 과 같다.
+        List<OrderResult> results = new ArrayList<>();
+        futures.forEach(future -> results.add(future.join()));
+        assertThat(virtual).hasSize(500).containsOnly(true);
+        assertThat(results).filteredOn(r -> r.getStatus() == OrderResult.Status.ROLLED_BACK).hasSize(100);
+        assertThat(results).filteredOn(r -> r.getStatus() == OrderResult.Status.PENDING).hasSize(100);
+        assertThat(results).filteredOn(r -> r.getStatus() == OrderResult.Status.COMPLETED).hasSize(300);
+    }
+
+    @Test
+    void transactionBindingOnVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "가상 스레드는 JDK 21+");
+
+        // given
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+        ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+        // joinV1 은 로그 저장(REQUIRES_NEW)에 커넥션을 하나 더 사용하므로 동시 실행 수를 풀 크기 / 2 로 제한
+        Semaphore permits = new Semaphore(4);
+
+        // when : 가상 스레드마다 트랜젝션 시작 -> joinV1 (REQUIRED 참여) -> 커밋
+        for (int i = 0; i < 200; i++) {
+            String username = "virtual_" + i;
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                            errors.add(username + " 트랜젝션 없음");
+                        }
+                        memberService.joinV1(username);
+                    });
+                } finally {
+                    permits.release();
+                }
+                // 커밋 후 스레드에 남은 리소스가 없어야 한다.
+                if (!TransactionSynchronizationManager.getResourceMap().isEmpty()) {
+                    errors.add(username + " 리소스 남음");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(errors).isEmpty();
+        for (int i = 0; i < 200; i++) {
+            assertThat(memberRepository.existsByUsername("virtual_" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void joinAllOnVirtualThreads() {
+        assumeTrue(VirtualThreads.isSupported(), "가상 스레드는 JDK 21+");
+        assertThat(memberService.getJoinAllThreads()).isEqualTo(OrderProcessingEngine.Threads.VIRTUAL);
+
+        // given : 1,000 명 중 1 명은 로그예외
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            usernames.add(i == 420 ? "로그예외_virtual_joinAll" : "virtual_joinAll_" + i);
+        }
+
+        // when
+        JoinAllResult result = memberService.joinAll(usernames);
+
+        // then : PLATFORM 과 같은 결과 (청크 100 명씩 10개, 실패한 청크만 한건씩 다시 저장)
+        assertThat(result.getJoined()).isEqualTo(999);
+        assertThat(result.getFailedUsernames()).containsExactly("로그예외_virtual_joinAll");
+        assertThat(result.getChunks()).isEqualTo(10);
+        assertThat(result.getRetriedChunks()).isEqualTo(1);
+        assertThat(memberRepository.existsByUsername("virtual_joinAll_0")).isTrue();
+        assertThat(memberRepository.existsByUsername("로그예외_virtual_joinAll")).isFalse();
+    }
+}
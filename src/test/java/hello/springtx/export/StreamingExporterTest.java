@@ -0,0 +1,98 @@
+package hello.springtx.export;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "export.fetch-size=100")
+class StreamingExporterTest {
+
+    @Autowired
+    StreamingExporter exporter;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    OrderService orderService;
+
+    @Test
+    void exportLogs() {
+        // given
+        List<Log> logs = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            logs.add(new Log("export_" + i));
+        }
+        logs.add(new Log("export_\"quote\",comma\nline"));
+        logRepository.saveAll(logs);
+
+        // when
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long csvRows = exporter.exportLogs(csv, ExportFormat.CSV);
+        long ndjsonRows = exporter.exportLogs(ndjson, ExportFormat.NDJSON);
+
+        // then
+        assertThat(csvRows).isEqualTo(ndjsonRows).isGreaterThanOrEqualTo(1_001);
+        String csvText = csv.toString(StandardCharsets.UTF_8);
+        assertThat(csvText).startsWith("id,message,createdAt\n")
+                .contains(",export_999,")
+                .contains(",\"export_\"\"quote\"\",comma\nline\",");
+        String ndjsonText = ndjson.toString(StandardCharsets.UTF_8);
+        assertThat(ndjsonText.split("\n")).hasSize((int) ndjsonRows);
+        assertThat(ndjsonText).contains("\"message\":\"export_\\\"quote\\\",comma\\nline\",\"createdAt\":\"");
+    }
+
+    @Test
+    void exportOrders() {
+        // given
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Order order = new Order();
+            order.setUsername(i % 2 == 0 ? "정상" : "잔고부족");
+            orders.add(order);
+        }
+        orderService.orderAll(orders);
+
+        // when
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter.exportOrders(out, ExportFormat.NDJSON);
+
+        // then
+        assertThat(rows).isGreaterThanOrEqualTo(300);
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .contains("{\"id\":" + orders.get(0).getId() + ",\"username\":\"정상\",\"payStatus\":\"완료\"}")
+                .contains("{\"id\":" + orders.get(1).getId() + ",\"username\":\"잔고부족\",\"payStatus\":\"대기\"}");
+    }
+
+    @Test
+    void readOnlyTransaction() {
+        // given : 쓰는 동안 트랜젝션 상태 기록
+        List<Boolean> readOnly = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                readOnly.add(TransactionSynchronizationManager.isActualTransactionActive()
+                        && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                super.write(b, off, len);
+            }
+        };
+        logRepository.save(new Log("export_readOnly"));
+
+        // when
+        exporter.exportLogs(out, ExportFormat.CSV);
+
+        // then : 하나의 readOnly 트랜젝션 안에서 쓴다.
+        assertThat(readOnly).isNotEmpty().containsOnly(true);
+    }
+}
@@ -0,0 +1,112 @@
+package hello.springtx.failfast;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "tx.fail-fast.enabled=true")
+class RollbackOnlyFailFastTest {
+
+    @Autowired
+    FailFastService failFastService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    RollbackOnlyFailFastInterceptor interceptor;
+    @Autowired
+    FailFastMetrics failFastMetrics;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void failFastAfterInnerRollback() {
+        // given
+        String username = "failFast";
+        long before = interceptor.getFailFastCount();
+
+        // when : 내부 트랜젝션 실패 후 다음 리포지토리 호출에서 바로 실패
+        assertThatThrownBy(() -> failFastService.join(username))
+                .isInstanceOf(RollbackOnlyFailFastException.class)
+                .isInstanceOf(UnexpectedRollbackException.class);
+
+        // then
+        assertThat(interceptor.getFailFastCount()).isEqualTo(before + 1);
+        assertThat(memberRepository.existsByUsername(username)).isFalse();
+    }
+
+    @Test
+    void failFastInTransactionTemplate() {
+        // given
+        String username = "failFast_template";
+        long skipped = skipped("MemberRepository.save");
+
+        // when : TransactionTemplate 트랜젝션 안에서 내부 트랜젝션 실패
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member(username + "_before"));
+            try {
+                logRepository.saveAll(List.of(new Log("로그예외_" + username)));
+            } catch (RuntimeException e) {
+                // 참여 트랜젝션 롤백 -> rollback-only
+            }
+            assertThatThrownBy(() -> memberRepository.save(new Member(username)))
+                    .isInstanceOf(RollbackOnlyFailFastException.class);
+        })).isInstanceOf(UnexpectedRollbackException.class);
+
+        // then : 메소드별로 실행한 호출과 실행하지 않은 호출을 기록
+        FailFastMetrics.MethodSnapshot save = failFastMetrics.snapshot().get("MemberRepository.save");
+        assertThat(save.getSkipped()).isEqualTo(skipped + 1);
+        assertThat(save.getExecutions()).isPositive();
+        assertThat(save.getAvoidedMicros()).isGreaterThanOrEqualTo(0);
+        assertThat(memberRepository.existsByUsername(username + "_before")).isFalse();
+    }
+
+    private long skipped(String method) {
+        FailFastMetrics.MethodSnapshot snapshot = failFastMetrics.snapshot().get(method);
+        return snapshot == null ? 0 : snapshot.getSkipped();
+    }
+
+    @TestConfiguration
+    static class FailFastConfig {
+        @Bean
+        FailFastService failFastService(MemberRepository memberRepository, LogRepository logRepository) {
+            return new FailFastService(memberRepository, logRepository);
+        }
+    }
+
+    @Slf4j
+    @RequiredArgsConstructor
+    static class FailFastService {
+
+        private final MemberRepository memberRepository;
+        private final LogRepository logRepository;
+
+        @Transactional
+        public void join(String username) {
+            try {
+                // REQUIRED 참여 : 예외 발생 -> rollback-only 표시
+                logRepository.saveAll(List.of(new Log("로그예외_" + username)));
+            } catch (RuntimeException e) {
+                log.info("log 저장에 실패했습니다.");
+            }
+            // 여기서 fail-fast (INSERT 를 실행하지 않음)
+            memberRepository.save(new Member(username));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package hello.springtx.id;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LockFreePooledLoOptimizerTest {
+
+    /**
+     * increment by {incrementSize} 로 증가하는 시퀀스 흉내
+     */
+    static class SequenceCallback implements AccessCallback {
+        final AtomicLong sequence = new AtomicLong(1);
+        final AtomicLong calls = new AtomicLong();
+        final int incrementSize;
+
+        SequenceCallback(int incrementSize) {
+            this.incrementSize = incrementSize;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            calls.incrementAndGet();
+            return IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class)
+                    .initialize(sequence.getAndAdd(incrementSize));
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+
+    @Test
+    void generate() {
+        LockFreePooledLoOptimizer optimizer = new LockFreePooledLoOptimizer(Long.class, 50);
+        SequenceCallback callback = new SequenceCallback(50);
+
+        for (long expected = 1; expected <= 120; expected++) {
+            assertThat(optimizer.generate(callback)).isEqualTo(expected);
+        }
+        // 120 개 발급에 시퀀스 조회는 3번 (1, 51, 101)
+        assertThat(callback.calls.get()).isEqualTo(3);
+        assertThat(optimizer.getLastSourceValue().makeValue()).isEqualTo(101L);
+    }
+
+    @Test
+    void generate_concurrent() throws InterruptedException {
+        LockFreePooledLoOptimizer optimizer = new LockFreePooledLoOptimizer(Long.class, 50);
+        SequenceCallback callback = new SequenceCallback(50);
+        Set<Object> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(optimizer.generate(callback));
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // 중복 없이 발급, 시퀀스 조회는 블록 수 만큼만
+        assertThat(ids).hasSize(80_000);
+        assertThat(callback.calls.get()).isEqualTo(80_000 / 50);
+    }
+
+    /**
+     * 블록 크기(7)로 나누어 떨어지지 않는 개수를 동시에 발급
+     * 블록 경계에서 여러 스레드가 동시에 refill 을 시도해도 빈 번호/중복 없이 1 ~ N 이 발급되고,
+     * 스레드마다 발급받은 ID 는 증가한다.
+     */
+    @Test
+    void generate_concurrent_blockBoundary() throws InterruptedException {
+        LockFreePooledLoOptimizer optimizer = new LockFreePooledLoOptimizer(Long.class, 7);
+        SequenceCallback callback = new SequenceCallback(7);
+        List<List<Long>> perThread = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(() -> {
+                List<Long> ids = new ArrayList<>(1_000);
+                for (int i = 0; i < 1_000; i++) {
+                    ids.add((Long) optimizer.generate(callback));
+                }
+                perThread.add(ids);
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        List<Long> all = new ArrayList<>();
+        for (List<Long> ids : perThread) {
+            assertThat(ids).isSorted().doesNotHaveDuplicates();
+            all.addAll(ids);
+        }
+        assertThat(all).hasSize(8_000).doesNotHaveDuplicates();
+        assertThat(all).allMatch(id -> id >= 1 && id <= 8_000);
+        // 블록 수 : ceil(8000 / 7)
+        assertThat(callback.calls.get()).isEqualTo((8_000 + 6) / 7);
+    }
+}
@@ -0,0 +1,150 @@
+package hello.springtx.importer;
+
+import hello.springtx.propagation.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "member.import.chunk-size=100")
+class MemberImporterTest {
+
+    @Autowired
+    MemberImporter memberImporter;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void csv() {
+        // given : 헤더 + 10,000 행
+        StringBuilder csv = new StringBuilder("username,email\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append("csv_").append(i).append(",csv_").append(i).append("@hello\n");
+        }
+        csv.append("\"csv_\"\"quoted\"\", 1\",x\n");
+
+        // when
+        ImportReport report = memberImporter.importMembers(input(csv), ImportFormat.CSV);
+
+        // then
+        assertThat(report.getImportedRows()).isEqualTo(10_001);
+        assertThat(report.getCommittedOffset()).isEqualTo(10_001);
+        assertThat(report.getCommits()).isEqualTo(101);
+        assertThat(report.getRowsPerSecond()).isPositive();
+        assertThat(memberRepository.existsByUsername("csv_0")).isTrue();
+        assertThat(memberRepository.existsByUsername("csv_9999")).isTrue();
+        assertThat(memberRepository.existsByUsername("csv_\"quoted\", 1")).isTrue();
+    }
+
+    @Test
+    void ndjson() {
+        // given
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            ndjson.append("{\"username\":\"ndjson_").append(i).append("\"}\n");
+        }
+
+        // when
+        ImportReport report = memberImporter.importMembers(input(ndjson), ImportFormat.NDJSON);
+
+        // then
+        assertThat(report.getImportedRows()).isEqualTo(1_000);
+        assertThat(memberRepository.existsByUsername("ndjson_0")).isTrue();
+        assertThat(memberRepository.existsByUsername("ndjson_999")).isTrue();
+    }
+
+    @Test
+    void resume() {
+        // given : 250 번째 행이 컬럼 길이(255)를 넘어 저장 실패
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            String username = i == 250 ? "x".repeat(300) : "resume_" + i;
+            ndjson.append("{\"username\":\"").append(username).append("\"}\n");
+        }
+
+        // when
+        MemberImportException exception = catchThrowableOfType(
+                () -> memberImporter.importMembers(input(ndjson), ImportFormat.NDJSON),
+                MemberImportException.class);
+
+        // then : 실패한 청크(200 ~ 299)만 롤백
+        assertThat(exception.getCommittedOffset()).isEqualTo(200);
+        assertThat(memberRepository.existsByUsername("resume_199")).isTrue();
+        assertThat(memberRepository.existsByUsername("resume_200")).isFalse();
+
+        // when : 잘못된 행을 고친 입력으로 커밋된 위치부터 재시작
+        String fixed = ndjson.toString().replace("x".repeat(300), "resume_250");
+        ImportReport report = memberImporter.importMembers(input(fixed), ImportFormat.NDJSON,
+                exception.getCommittedOffset());
+
+        // then
+        assertThat(report.getImportedRows()).isEqualTo(300);
+        assertThat(report.getCommittedOffset()).isEqualTo(500);
+        assertThat(memberRepository.existsByUsername("resume_250")).isTrue();
+        assertThat(memberRepository.existsByUsername("resume_499")).isTrue();
+    }
+
+    @Test
+    void ndjson_missingUsername() {
+        // given : 중간 행에 username 이 없거나 문자열이 아님
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            if (i == 150) {
+                ndjson.append("{\"name\":\"missing_150\"}\n");
+            } else if (i == 151) {
+                ndjson.append("{\"username\":null}\n");
+            } else {
+                ndjson.append("{\"username\":\"missing_").append(i).append("\"}\n");
+            }
+        }
+
+        // when : 입력의 끝으로 처리하지 않고 실패
+        MemberImportException exception = catchThrowableOfType(
+                () -> memberImporter.importMembers(input(ndjson), ImportFormat.NDJSON),
+                MemberImportException.class);
+
+        // then : 151 번째 줄에서 실패, 실패한 청크(100 ~ 199)만 롤백
+        assertThat(exception).hasMessageContaining("line=151");
+        assertThat(exception.getCommittedOffset()).isEqualTo(100);
+        assertThat(memberRepository.existsByUsername("missing_99")).isTrue();
+        assertThat(memberRepository.existsByUsername("missing_100")).isFalse();
+
+        // when : 다음 행(null)도 실패
+        String fixed = ndjson.toString().replace("{\"name\":\"missing_150\"}", "{\"username\":\"missing_150\"}");
+        MemberImportException next = catchThrowableOfType(
+                () -> memberImporter.importMembers(input(fixed), ImportFormat.NDJSON, exception.getCommittedOffset()),
+                MemberImportException.class);
+
+        // then
+        assertThat(next).hasMessageContaining("line=152");
+        assertThat(next.getCommittedOffset()).isEqualTo(100);
+    }
+
+    @Test
+    void duplicateUsername() {
+        // given : 150 번째 행이 앞 행과 같은 username (uk_member_username)
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            csv.append(i == 150 ? "duplicate_import_10" : "duplicate_import_" + i).append('\n');
+        }
+
+        // when
+        MemberImportException exception = catchThrowableOfType(
+                () -> memberImporter.importMembers(input(csv), ImportFormat.CSV),
+                MemberImportException.class);
+
+        // then : 중복 행이 있는 청크(100 ~ 199)만 롤백
+        assertThat(exception.getCommittedOffset()).isEqualTo(100);
+        assertThat(memberRepository.existsByUsername("duplicate_import_99")).isTrue();
+        assertThat(memberRepository.existsByUsername("duplicate_import_100")).isFalse();
+    }
+
+    private InputStream input(CharSequence content) {
+        return new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
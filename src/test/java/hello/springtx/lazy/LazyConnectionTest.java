@@ -0,0 +1,50 @@
+package hello.springtx.lazy;
+
+import hello.springtx.propagation.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "tx.lazy-connection.enabled=true")
+class LazyConnectionTest {
+
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void noSqlNoConnection() throws Exception {
+        LazyConnectionMetricsDataSource lazy = dataSource.unwrap(LazyConnectionMetricsDataSource.class);
+        long physical = lazy.getPhysicalConnectionCount();
+        long elided = lazy.getElidedConnectionCount();
+
+        // when : SQL 을 실행하지 않는 트랜젝션
+        transactionTemplate.executeWithoutResult(status ->
+                assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue());
+
+        // then : 실제 커넥션을 가져오지 않음
+        assertThat(lazy.getPhysicalConnectionCount()).isEqualTo(physical);
+        assertThat(lazy.getElidedConnectionCount()).isEqualTo(elided + 1);
+    }
+
+    @Test
+    void sqlFetchesConnection() throws Exception {
+        LazyConnectionMetricsDataSource lazy = dataSource.unwrap(LazyConnectionMetricsDataSource.class);
+        long physical = lazy.getPhysicalConnectionCount();
+
+        // when : SQL 실행
+        transactionTemplate.executeWithoutResult(status -> memberRepository.existsByUsername("lazy"));
+
+        // then : 첫 SQL 실행 시점에 커넥션 획득
+        assertThat(lazy.getPhysicalConnectionCount()).isEqualTo(physical + 1);
+    }
+}
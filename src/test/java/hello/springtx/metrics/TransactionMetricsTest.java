@@ -0,0 +1,138 @@
+package hello.springtx.metrics;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderService;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest(properties = "tx.metrics.enabled=true")
+class TransactionMetricsTest {
+
+    @Autowired
+    TransactionMetrics transactionMetrics;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JpaTransactionManager jpaTransactionManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void recordPerMethod() throws NotEnoughMoneyException {
+        // given
+        Order complete = new Order();
+        complete.setUsername("정상");
+        Order fail = new Order();
+        fail.setUsername("예외");
+
+        // when
+        orderService.order(complete);
+        assertThatThrownBy(() -> orderService.order(fail)).isInstanceOf(RuntimeException.class);
+        memberService.joinV1("metrics_joinV1");
+
+        // then
+        Map<String, TransactionMetrics.MethodSnapshot> snapshot = transactionMetrics.snapshot();
+        log.info("{}", transactionMetrics.getReport());
+
+        TransactionMetrics.MethodSnapshot order = snapshot.get("hello.springtx.order.OrderService.order");
+        assertThat(order.getCommits()).isGreaterThanOrEqualTo(1);
+        assertThat(order.getRollbacks()).isGreaterThanOrEqualTo(1);
+        assertThat(order.getCommit().getCount()).isGreaterThanOrEqualTo(1);
+        assertThat(order.getConnection().getCount()).isGreaterThanOrEqualTo(1);
+
+        // 참여한 트랜젝션과 REQUIRES_NEW 트랜젝션도 메소드 별로 기록된다.
+        assertThat(snapshot).containsKeys(
+                "hello.springtx.propagation.MemberService.joinV1",
+                "hello.springtx.propagation.MemberRepository.save",
+                "hello.springtx.propagation.LogRepository.save");
+        assertThat(snapshot.get("hello.springtx.propagation.MemberRepository.save").getJoins()).isGreaterThanOrEqualTo(1);
+        assertThat(snapshot.get("hello.springtx.propagation.LogRepository.save").getCommits()).isGreaterThanOrEqualTo(1);
+    }
+
+    /**
+     * 프록시가 아닌 하위 클래스이므로 JpaTransactionManager 타입으로 주입할 수 있다.
+     */
+    @Test
+    void injectByClass() {
+        assertThat(transactionManager).isSameAs(jpaTransactionManager).isInstanceOf(MetricsJpaTransactionManager.class);
+        assertThat(jpaTransactionManager.getEntityManagerFactory()).isNotNull();
+    }
+
+    @Test
+    void recordFlush() {
+        // given
+        String username = "metrics_flush";
+
+        // when : 커밋 전 flush 에서 insert
+        transactionTemplate.executeWithoutResult(status -> memberRepository.save(new Member(username)));
+
+        // then
+        TransactionMetrics.MethodSnapshot programmatic = transactionMetrics.snapshot().get(TransactionMetrics.PROGRAMMATIC);
+        assertThat(programmatic.getFlush().getCount()).isGreaterThanOrEqualTo(1);
+        assertThat(programmatic.getCommits()).isGreaterThanOrEqualTo(1);
+    }
+
+    /**
+     * 커밋 순서를 바꾸지 않는다 : beforeCommit 동기화가 flush 보다 먼저 호출된다.
+     */
+    @Test
+    void beforeCommitRunsBeforeFlush() {
+        String username = "metrics_beforeCommit";
+        AtomicLong rowsAtBeforeCommit = new AtomicLong(-1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member(username));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // 같은 커넥션으로 조회 : flush 되었으면 insert 가 보인다.
+                    rowsAtBeforeCommit.set(jdbcTemplate.queryForObject(
+                            "select count(*) from member where username = ?", Long.class, username));
+                }
+            });
+        });
+
+        assertThat(rowsAtBeforeCommit).hasValue(0);
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+    }
+
+    @Test
+    void histogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);        // 1us
+        }
+        histogram.record(1_000_000);        // 1ms
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(100);
+        assertThat(snapshot.getP50Micros()).isLessThanOrEqualTo(2);
+        assertThat(snapshot.getMaxMicros()).isEqualTo(1_000);
+    }
+}
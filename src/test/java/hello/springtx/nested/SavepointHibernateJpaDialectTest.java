@@ -0,0 +1,100 @@
+package hello.springtx.nested;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "tx.nested.enabled=true")
+class SavepointHibernateJpaDialectTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * 내부 범위가 flush 중 unique 제약조건 위반으로 실패
+     * 실패한 insert 를 다시 flush 하지 않고 버린 후 savepoint 로 롤백하므로 외부 트랜젝션은 커밋된다.
+     */
+    @Test
+    void nested_flushFailure() {
+        // given
+        memberRepository.save(new Member("savepoint_duplicate"));
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate nested = nested();
+
+        // when
+        outer.executeWithoutResult(status -> {
+            memberRepository.save(new Member("savepoint_before"));
+            assertThatThrownBy(() -> nested.executeWithoutResult(s -> {
+                memberRepository.save(new Member("savepoint_inner"));
+                memberRepository.save(new Member("savepoint_duplicate"));
+                em.flush();
+            })).isInstanceOf(RuntimeException.class);
+            memberRepository.save(new Member("savepoint_after"));
+        });
+
+        // then : 내부 범위만 롤백
+        assertThat(memberRepository.existsByUsername("savepoint_before")).isTrue();
+        assertThat(memberRepository.existsByUsername("savepoint_after")).isTrue();
+        assertThat(memberRepository.existsByUsername("savepoint_inner")).isFalse();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where username = ?", Long.class,
+                "savepoint_duplicate")).isEqualTo(1);
+    }
+
+    /**
+     * 외부 범위의 엔티티를 내부 범위에서 변경 후 롤백 : 변경된 엔티티만 DB 상태로 되돌린다.
+     */
+    @Test
+    void nested_revertChangedEntity() {
+        // given
+        memberRepository.save(new Member("savepoint_changed"));
+        memberRepository.save(new Member("savepoint_unchanged"));
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate nested = nested();
+
+        // when
+        outer.executeWithoutResult(status -> {
+            Member changed = load("savepoint_changed");
+            Member unchanged = load("savepoint_unchanged");
+            assertThatThrownBy(() -> nested.executeWithoutResult(s -> {
+                changed.setUsername("savepoint_changed_inner");
+                throw new IllegalStateException("내부 범위 실패");
+            })).isInstanceOf(IllegalStateException.class);
+
+            // then : 변경 취소, 두 엔티티 모두 영속 상태 유지
+            assertThat(changed.getUsername()).isEqualTo("savepoint_changed");
+            assertThat(em.contains(changed)).isTrue();
+            assertThat(em.contains(unchanged)).isTrue();
+        });
+
+        assertThat(memberRepository.existsByUsername("savepoint_changed")).isTrue();
+        assertThat(memberRepository.existsByUsername("savepoint_changed_inner")).isFalse();
+    }
+
+    private Member load(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getSingleResult();
+    }
+
+    private TransactionTemplate nested() {
+        TransactionTemplate nested = new TransactionTemplate(transactionManager);
+        nested.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        return nested;
+    }
+}
@@ -0,0 +1,113 @@
+package hello.springtx.order;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogDto;
+import hello.springtx.propagation.LogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+class KeysetPaginationTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void orderPages() {
+        // given
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 95; i++) {
+            Order order = new Order();
+            order.setUsername(i % 3 == 0 ? "잔고부족" : "정상");
+            orders.add(order);
+        }
+        orderService.orderAll(orders);
+        long firstId = orders.get(0).getId() - 1;
+        List<Long> pendingIds = orders.stream()
+                .filter(o -> o.getPayStatus().equals("대기"))
+                .map(Order::getId)
+                .collect(Collectors.toList());
+
+        // when : 마지막으로 읽은 id 로 다음 페이지 조회
+        List<Long> all = readAll(lastId -> orderRepository.findPageAfter(lastId, 10), firstId);
+        List<Long> pending = readAll(lastId -> orderRepository.findPageAfter("대기", lastId, 10), firstId);
+
+        // then : 중복, 누락 없이 id 순서대로
+        assertThat(all).startsWith(orders.stream().map(Order::getId).toArray(Long[]::new)).isSorted();
+        assertThat(pending).containsExactlyElementsOf(pendingIds);
+    }
+
+    @Test
+    void orderPayStatusIndex() {
+        String plan = jdbcTemplate.queryForObject(
+                "explain select * from orders where pay_status = '대기' and id > 100", String.class);
+        assertThat(plan).containsIgnoringCase("idx_orders_pay_status_id");
+    }
+
+    @Test
+    void logPages() {
+        // given
+        List<Log> logs = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            logs.add(new Log("page_" + i));
+        }
+        logs.add(new Log("pageX"));
+        logs.add(new Log("page%_wildcard"));
+        logRepository.saveAll(logs);
+
+        // when
+        List<String> messages = new ArrayList<>();
+        LogDto last = null;
+        List<LogDto> page;
+        do {
+            page = logRepository.findPageAfter("page_", last, 10);
+            page.forEach(dto -> messages.add(dto.getMessage()));
+            last = page.isEmpty() ? last : page.get(page.size() - 1);
+        } while (page.size() == 10);
+
+        // then : _ 는 한 글자 와일드카드가 아닌 문자로 검색 (pageX 제외), message 순서
+        assertThat(messages).hasSize(25).allMatch(m -> m.startsWith("page_")).isSorted();
+        assertThat(logRepository.findPageAfter("page%_", null, 10))
+                .extracting(LogDto::getMessage).containsExactly("page%_wildcard");
+        assertThat(logRepository.findPageAfter(0, 5)).hasSize(5);
+    }
+
+    @Test
+    void logPrefixIndex() {
+        String plan = jdbcTemplate.queryForObject(
+                "explain select * from log where message like 'page!_%' escape '!' order by message, id limit 10",
+                String.class);
+        assertThat(plan).containsIgnoringCase("idx_log_message_id");
+    }
+
+    private List<Long> readAll(PageReader reader, long firstId) {
+        List<Long> ids = new ArrayList<>();
+        long lastId = firstId;
+        while (true) {
+            List<Order> page = reader.read(lastId);
+            if (page.isEmpty()) {
+                return ids;
+            }
+            page.forEach(order -> ids.add(order.getId()));
+            lastId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private interface PageReader {
+        List<Order> read(long lastId);
+    }
+}
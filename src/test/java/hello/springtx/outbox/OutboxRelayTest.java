@@ -0,0 +1,139 @@
+package hello.springtx.outbox;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderResult;
+import hello.springtx.order.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+// 스케줄러가 끼어들지 않도록 interval 을 길게 두고 relay() 를 직접 호출한다.
+@SpringBootTest(properties = {"outbox.relay.enabled=true", "outbox.relay.interval-ms=3600000", "outbox.relay.batch-size=100"})
+class OutboxRelayTest {
+
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OutboxRepository outboxRepository;
+    @Autowired
+    OutboxRelay outboxRelay;
+    @Autowired
+    InMemoryOutboxSink sink;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void before() {
+        // 다른 테스트가 남긴 이벤트 전송
+        outboxRelay.relay();
+        sink.clear();
+    }
+
+    @Test
+    void order_outbox() {
+        // given
+        Order complete = newOrder("정상");
+        Order pending = newOrder("잔고부족");
+        Order error = newOrder("예외");
+
+        // when
+        assertThatCode(() -> orderService.order(complete)).doesNotThrowAnyException();
+        assertThatThrownBy(() -> orderService.order(pending)).isInstanceOf(NotEnoughMoneyException.class);
+        assertThatThrownBy(() -> orderService.order(error)).isInstanceOf(RuntimeException.class);
+        int relayed = outboxRelay.relay();
+
+        // then : 커밋된 주문의 이벤트만 전송 (예외 주문은 outbox 도 롤백)
+        assertThat(relayed).isEqualTo(2);
+        assertThat(sink.getReceived()).extracting(OutboxEvent::getOrderId, OutboxEvent::getEventType)
+                .containsExactly(
+                        tuple(complete.getId(), OutboxEvent.PAYMENT_COMPLETED),
+                        tuple(pending.getId(), OutboxEvent.PAYMENT_PENDING));
+        assertThat(outboxRepository.countByDeliveredAtIsNull()).isZero();
+    }
+
+    @Test
+    void orderAll_outbox_batches() {
+        // given : relay batch 크기(100) 를 넘는 주문
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            orders.add(newOrder(i % 10 == 0 ? "예외" : i % 10 == 1 ? "잔고부족" : "정상"));
+        }
+
+        // when
+        List<OrderResult> results = orderService.orderAll(orders);
+        int relayed = outboxRelay.relay();
+
+        // then : 커밋된 주문 225건의 이벤트가 id 순서대로 한번씩 전송
+        List<Long> committed = results.stream()
+                .filter(r -> r.getStatus() != OrderResult.Status.ROLLED_BACK)
+                .map(OrderResult::getOrderId)
+                .sorted()
+                .collect(Collectors.toList());
+        assertThat(relayed).isEqualTo(225);
+        assertThat(sink.getReceived()).extracting(OutboxEvent::getOrderId).containsExactlyElementsOf(committed);
+
+        // 다시 실행해도 중복 전송하지 않는다.
+        assertThat(outboxRelay.relay()).isZero();
+    }
+
+    @Test
+    void sinkFailure_retry() {
+        // given
+        Order order = newOrder("정상");
+        assertThatCode(() -> orderService.order(order)).doesNotThrowAnyException();
+        long failures = outboxRelay.getSendFailureCount();
+
+        // when : 전송 실패
+        OutboxRelay failingRelay = new OutboxRelay(outboxRepository, events -> {
+            throw new IllegalStateException("전송 실패");
+        }, transactionTemplate);
+        ReflectionTestUtils.setField(failingRelay, "batchSize", 100);
+
+        // then : 전송 완료 표시하지 않으므로 다음 relay() 에서 다시 전송
+        assertThat(failingRelay.relay()).isZero();
+        assertThat(failingRelay.getSendFailureCount()).isEqualTo(1);
+        assertThat(outboxRelay.getSendFailureCount()).isEqualTo(failures);
+        assertThat(outboxRelay.relay()).isEqualTo(1);
+        assertThat(sink.getReceived()).extracting(OutboxEvent::getOrderId).containsExactly(order.getId());
+    }
+
+    @Test
+    void purgeDelivered() {
+        // given : 전송 완료된 이벤트
+        Order order = newOrder("정상");
+        assertThatCode(() -> orderService.order(order)).doesNotThrowAnyException();
+        assertThat(outboxRelay.relay()).isEqualTo(1);
+        assertThat(outboxRepository.countByDeliveredAtIsNotNull()).isPositive();
+
+        // when : 보관 기간 0, 매 호출마다 0 부터 조회
+        OutboxRelay purgingRelay = new OutboxRelay(outboxRepository, sink, transactionTemplate);
+        ReflectionTestUtils.setField(purgingRelay, "batchSize", 100);
+        ReflectionTestUtils.setField(purgingRelay, "fullScanEvery", 1);
+        ReflectionTestUtils.setField(purgingRelay, "deliveredRetentionMs", 0L);
+        Order next = newOrder("정상");
+        assertThatCode(() -> orderService.order(next)).doesNotThrowAnyException();
+
+        // then : 이전에 전송 완료된 이벤트는 삭제하고, 새 이벤트는 전송
+        assertThat(purgingRelay.relay()).isEqualTo(1);
+        assertThat(purgingRelay.getPurgedCount()).isPositive();
+        assertThat(outboxRepository.countByDeliveredAtIsNotNull()).isEqualTo(1);
+        assertThat(outboxRepository.countByDeliveredAtIsNull()).isZero();
+        assertThat(sink.getReceived()).extracting(OutboxEvent::getOrderId).containsExactly(order.getId(), next.getId());
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
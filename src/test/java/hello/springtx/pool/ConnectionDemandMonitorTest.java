@@ -0,0 +1,143 @@
+package hello.springtx.pool;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 풀 크기 2, 두 스레드가 각각 외부 트랜젝션(커넥션 1개)을 잡은 상태에서
+ * REQUIRES_NEW (LogRepository.save) 로 커넥션을 하나 더 요청하면 교착상태가 된다.
+ */
+@SpringBootTest(properties = {
+        "pool.monitor.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=10000",
+        "pool.monitor.mode=FAIL"})
+class ConnectionDemandMonitorTest {
+
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void nestedDeadlock_failFast() throws Exception {
+        ConnectionDemandMonitor monitor = dataSource.unwrap(MonitoredDataSource.class).getMonitor();
+        assertThat(monitor.getPoolSize()).isEqualTo(2);
+
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String message = "deadlock_" + i;
+            results.add(executor.submit(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        await(barrier);
+                        logRepository.save(new Log(message));
+                    });
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+
+        long start = System.nanoTime();
+        int success = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(20, TimeUnit.SECONDS)) {
+                success++;
+            }
+        }
+        executor.shutdown();
+
+        // 하나는 바로 실패하고, 반납된 커넥션으로 나머지 하나는 성공한다. (타임아웃 10초를 기다리지 않음)
+        assertThat(success).isEqualTo(1);
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(10);
+        assertThat(monitor.getDeadlockCount()).isGreaterThanOrEqualTo(1);
+        assertThat(monitor.getMaxNesting()).isEqualTo(2);
+        assertThat(monitor.getRecommendedMinimumPoolSize()).isEqualTo(3);
+        assertThat(monitor.getConnectionsHeld()).isZero();
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void noDeadlockWhileOtherThreadHoldsFirstConnection() throws Exception {
+        // given : 풀 크기 2, 스레드 A 가 1개 보유, 스레드 B 가 첫번째 커넥션을 막 획득
+        ConnectionDemandMonitor monitor = new ConnectionDemandMonitor(2, ConnectionDemandMonitor.Mode.FAIL);
+        Thread a = new Thread(() -> {
+        });
+        Thread b = new Thread(() -> {
+        });
+        monitor.acquired(a, monitor.beforeAcquire(a));
+        monitor.acquired(b, monitor.beforeAcquire(b));
+
+        // when : A 가 추가 커넥션 요청 (B 는 기다리지 않으므로 B 가 반납하면 받을 수 있다.)
+        int held = monitor.beforeAcquire(a);
+
+        // then
+        assertThat(held).isEqualTo(1);
+        assertThat(monitor.getDeadlockCount()).isZero();
+
+        // B 도 추가 커넥션을 기다리면 교착상태
+        assertThatThrownBy(() -> monitor.beforeAcquire(b)).isInstanceOf(NestedConnectionDeadlockException.class);
+        assertThat(monitor.getDeadlockCount()).isEqualTo(1);
+    }
+
+    @Test
+    void releasedOnAnotherThread() throws Exception {
+        ConnectionDemandMonitor monitor = dataSource.unwrap(MonitoredDataSource.class).getMonitor();
+
+        // given : 현재 스레드에서 획득
+        Connection connection = dataSource.getConnection();
+        assertThat(monitor.getConnectionsHeld()).isEqualTo(1);
+        assertThat(monitor.getThreadsHolding()).isEqualTo(1);
+
+        // when : 다른 스레드에서 반납 (두번 닫아도 한번만 집계)
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                connection.close();
+                connection.close();
+                return null;
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        // then : 획득한 스레드의 보유 수가 줄어든다.
+        assertThat(monitor.getConnectionsHeld()).isZero();
+        assertThat(monitor.getThreadsHolding()).isZero();
+    }
+
+    @Test
+    void unwrapMonitor() throws SQLException {
+        assertThat(dataSource.isWrapperFor(MonitoredDataSource.class)).isTrue();
+    }
+}
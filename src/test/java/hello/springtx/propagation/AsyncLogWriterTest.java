@@ -0,0 +1,89 @@
+package hello.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = "log.async.enabled=true")
+class AsyncLogWriterTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    AsyncLogWriter asyncLogWriter;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void joinV1_async() throws InterruptedException {
+        // given
+        String username = "async_joinV1";
+
+        // when
+        memberService.joinV1(username);
+        assertThat(asyncLogWriter.flush(5_000)).isTrue();
+
+        // then : 커밋 후 writer 스레드가 로그 저장
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isTrue();
+    }
+
+    @Test
+    void joinV1_async_rollback() throws InterruptedException {
+        // given
+        String username = "async_rollback";
+
+        // when : 외부 트랜젝션 롤백
+        transactionTemplate.executeWithoutResult(status -> {
+            memberService.joinV1(username);
+            status.setRollbackOnly();
+        });
+        assertThat(asyncLogWriter.flush(5_000)).isTrue();
+
+        // then : 커밋되지 않았으므로 로그도 큐에 들어가지 않는다.
+        assertThat(memberRepository.existsByUsername(username)).isFalse();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
+    }
+
+    @Test
+    void joinV2_async_logException() throws InterruptedException {
+        // given
+        String username = "로그예외_async";
+        long failed = asyncLogWriter.getFailedCount();
+
+        // when
+        memberService.joinV2(username);
+        // 저장에 실패한 로그가 있으므로 false
+        assertThat(asyncLogWriter.flush(5_000)).isFalse();
+
+        // then : member 저장, 로그는 writer 에서 실패 처리
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
+        assertThat(asyncLogWriter.getFailedCount()).isEqualTo(failed + 1);
+    }
+
+    @Test
+    void enqueue_afterShutdown() throws InterruptedException {
+        // given : 종료된 writer
+        AsyncLogWriter writer = new AsyncLogWriter(logRepository);
+        ReflectionTestUtils.setField(writer, "capacity", 16);
+        ReflectionTestUtils.setField(writer, "backpressure", AsyncLogWriter.Backpressure.BLOCK);
+        writer.init();
+        writer.shutdown();
+
+        // when
+        writer.enqueue(new Log("async_afterShutdown"));
+
+        // then : writer 스레드를 다시 시작하지 않고 호출 스레드에서 바로 저장
+        assertThat(ReflectionTestUtils.getField(writer, "writer")).isNull();
+        assertThat(logRepository.existsByMessage("async_afterShutdown")).isTrue();
+    }
+}
@@ -0,0 +1,113 @@
+package hello.springtx.propagation;
+
+import hello.springtx.metrics.TransactionMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+// 트랜젝션 시작 여부를 TransactionMetrics 로 확인
+@SpringBootTest(properties = "tx.metrics.enabled=true")
+class MemberCacheTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberCache memberCache;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    TransactionMetrics transactionMetrics;
+
+    @Test
+    void readThrough() {
+        // given
+        String username = "cache_readThrough";
+        memberService.joinV1(username);
+        long hits = memberCache.getHitCount();
+        long misses = memberCache.getMissCount();
+
+        // when
+        memberRepository.find(username);
+        memberRepository.find(username);
+
+        // then : 첫번째는 DB 조회, 두번째는 캐시
+        assertThat(memberCache.contains(username)).isTrue();
+        assertThat(memberCache.getMissCount()).isEqualTo(misses + 1);
+        assertThat(memberCache.getHitCount()).isEqualTo(hits + 1);
+    }
+
+    /**
+     * 캐시 hit 이면 readOnly 트랜젝션을 시작하지 않는다. (커넥션 사용 X)
+     */
+    @Test
+    void cacheHitWithoutTransaction() {
+        // given
+        String username = "cache_hitNoTx";
+        memberService.joinV1(username);
+        memberRepository.find(username);
+        long findTransactions = findTransactionCount();
+
+        // when : 캐시 hit
+        assertThat(memberRepository.find(username)).isPresent();
+        assertThat(memberRepository.find(username)).isPresent();
+
+        // then
+        assertThat(findTransactionCount()).isEqualTo(findTransactions);
+    }
+
+    private long findTransactionCount() {
+        TransactionMetrics.MethodSnapshot find = transactionMetrics.snapshot().get(MemberRepository.FIND_TRANSACTION_NAME);
+        return find == null ? 0 : find.getCommits() + find.getRollbacks() + find.getJoins();
+    }
+
+    @Test
+    void putOnlyAfterCommit() {
+        // given
+        String username = "cache_rollback";
+
+        // when : 트랜젝션 안에서 저장 후 조회, 롤백
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.save(new Member(username));
+            assertThat(memberRepository.find(username)).isPresent();
+            assertThat(memberCache.contains(username)).isFalse();
+            status.setRollbackOnly();
+        });
+
+        // then : 롤백된 회원은 캐시에 없어야 한다.
+        assertThat(memberCache.contains(username)).isFalse();
+        assertThat(memberRepository.find(username)).isEmpty();
+    }
+
+    @Test
+    void joinV1_logException() {
+        // given
+        String username = "로그예외_cache";
+
+        // when : 로그 예외로 회원 저장까지 롤백
+        assertThatThrownBy(() -> memberService.joinV1(username))
+                .isInstanceOf(RuntimeException.class);
+
+        // then : 캐시에 유령 회원이 남지 않는다.
+        assertThat(memberCache.contains(username)).isFalse();
+        assertThat(memberRepository.find(username)).isEmpty();
+    }
+
+    @Test
+    void lruEviction() {
+        MemberCache cache = new MemberCache(2, 60_000);
+        cache.put("a", new MemberDto(1L, "a"));
+        cache.put("b", new MemberDto(2L, "b"));
+        cache.get("a");
+        cache.put("c", new MemberDto(3L, "c"));
+
+        // 가장 오래 조회되지 않은 b 가 제거된다.
+        assertThat(cache.contains("a")).isTrue();
+        assertThat(cache.contains("b")).isFalse();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+}
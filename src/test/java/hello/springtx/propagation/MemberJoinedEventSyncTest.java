@@ -0,0 +1,51 @@
+package hello.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * log.async.enabled=false : 리스너가 AsyncLogWriter 를 사용하지 않고 바로 저장한다.
+ */
+@SpringBootTest(properties = {"member.join.events.enabled=true", "log.async.enabled=false"})
+class MemberJoinedEventSyncTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    AsyncLogWriter asyncLogWriter;
+
+    @Test
+    void joinV1_event_sync() {
+        // given
+        String username = "event_sync_joinV1";
+        long processed = asyncLogWriter.getProcessedCount();
+
+        // when
+        memberService.joinV1(username);
+
+        // then : flush 없이 커밋 후 바로 저장, writer 는 사용하지 않는다.
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isTrue();
+        assertThat(asyncLogWriter.getProcessedCount()).isEqualTo(processed);
+    }
+
+    @Test
+    void joinV1_event_sync_logException() {
+        // given
+        String username = "로그예외_event_sync";
+
+        // when : 로그 저장 실패가 회원가입에 전파되지 않는다.
+        assertThatCode(() -> memberService.joinV1(username)).doesNotThrowAnyException();
+
+        // then
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
+    }
+}
@@ -0,0 +1,109 @@
+package hello.springtx.propagation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {"member.join.events.enabled=true", "log.async.enabled=true", "log.async.retry-backoff-ms=1"})
+class MemberJoinedEventTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    AsyncLogWriter asyncLogWriter;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void joinV1_event() throws InterruptedException {
+        // given
+        String username = "event_joinV1";
+
+        // when
+        memberService.joinV1(username);
+        assertThat(asyncLogWriter.flush(5_000)).isTrue();
+
+        // then : 커밋 후 리스너가 로그 저장
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isTrue();
+    }
+
+    @Test
+    void joinV1_event_rollback() throws InterruptedException {
+        // given
+        String username = "event_rollback";
+
+        // when : 외부 트랜젝션 롤백
+        transactionTemplate.executeWithoutResult(status -> {
+            memberService.joinV1(username);
+            status.setRollbackOnly();
+        });
+        assertThat(asyncLogWriter.flush(5_000)).isTrue();
+
+        // then : 롤백된 회원가입은 이벤트를 처리하지 않는다.
+        assertThat(memberRepository.existsByUsername(username)).isFalse();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
+    }
+
+    @Test
+    void joinV2_event() throws InterruptedException {
+        // given : 트랜젝션 밖에서 발행 (fallbackExecution)
+        String username = "event_joinV2";
+
+        // when
+        memberService.joinV2(username);
+        assertThat(asyncLogWriter.flush(5_000)).isTrue();
+
+        // then
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isTrue();
+    }
+
+    @Test
+    void joinV1_event_logException() throws InterruptedException {
+        // given
+        String username = "로그예외_event";
+        long failed = asyncLogWriter.getFailedCount();
+
+        // when : 로그 저장 실패가 회원가입에 전파되지 않는다.
+        memberService.joinV1(username);
+        // 저장에 실패한 로그가 있으므로 false
+        assertThat(asyncLogWriter.flush(5_000)).isFalse();
+
+        // then : 재시도 후 실패한 로그만 버린다.
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
+        assertThat(asyncLogWriter.getFailedCount()).isEqualTo(failed + 1);
+    }
+
+    @Test
+    void event_joinedAt() throws InterruptedException {
+        // given : 가입 시점이 리스너 실행 시점과 다른 날짜
+        String username = "event_joinedAt";
+        LocalDateTime joinedAt = LocalDateTime.now().minusDays(3);
+
+        // when
+        transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new MemberJoinedEvent(username, joinedAt)));
+        assertThat(asyncLogWriter.flush(5_000)).isTrue();
+
+        // then : 로그 시간과 bucket 은 가입 시점
+        Integer bucket = jdbcTemplate.queryForObject("select bucket from log where message = ?", Integer.class, username);
+        assertThat(bucket).isEqualTo(Log.bucketOf(joinedAt.toLocalDate()));
+    }
+}
@@ -5,13 +5,18 @@ import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.UnexpectedRollbackException;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @Slf4j
-@SpringBootTest
+@SpringBootTest(properties = "tx.nested.enabled=true") // joinV3 (NESTED)
 class MemberServiceTest {
 
     @Autowired
@@ -20,6 +25,8 @@ class MemberServiceTest {
     MemberRepository memberRepository;
     @Autowired
     LogRepository logRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
 
     /**
      * MemberService     @Transactional : OFF
@@ -35,8 +42,8 @@ class MemberServiceTest {
         memberService.joinV1(username);
 
         // then : 모든 데이터 정상 저장
-        assertThat(memberRepository.find(username)).isPresent();
-        assertThat(logRepository.find(username)).isPresent();
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isTrue();
 
         // 서비스 계층에 트랜젝션이 없을때 - 회원, 로그 리포지토리 둘다 커밋성공
         // memberRepository, logRepository 가 각각 트랜젝션을 시작하고 둘다 정상 커밋한다.
@@ -58,8 +65,8 @@ class MemberServiceTest {
                 .isInstanceOf(RuntimeException.class);
 
         // then
-        assertThat(memberRepository.find(username)).isPresent();
-        assertThat(logRepository.find(username)).isEmpty();
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
 
         // 서비스 계층에 트랜젝션이 없을때 - 회원 커밋, 로그 예외발생 롤백
         // memberRepository, logRepository 가 각각 트랜젝션을 시작
@@ -82,8 +89,10 @@ class MemberServiceTest {
         memberService.joinV1(username);
 
         // then : 모든 데이터 정상 저장
-        assertThat(memberRepository.find(username)).isPresent();
-        assertThat(logRepository.find(username)).isPresent();
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isTrue();
+        assertThat(memberRepository.find(username)).get().extracting(MemberDto::getUsername).isEqualTo(username);
+        assertThat(logRepository.find(username)).get().extracting(LogDto::getMessage).isEqualTo(username);
 
         // 서비스 계층에 트랜젝션을 선언
         // MemberService 가 시작할때부터 종료할 때까지 하나의 트랜젝션으로 관리
@@ -107,8 +116,8 @@ class MemberServiceTest {
         memberService.joinV1(username);
 
         // then : 모든 데이터 정상 저장
-        assertThat(memberRepository.find(username)).isPresent();
-        assertThat(logRepository.find(username)).isPresent();
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isTrue();
 
         // client A (outerTxOn_success()메소드) 가 MemberService 호출하면서 트랜젝션 AOP 호출
         // -> 신규 트랜젝션 생성, 물리 트랜젝션 시작
@@ -133,8 +142,8 @@ class MemberServiceTest {
                 .isInstanceOf(RuntimeException.class);
 
         // then : 모든 데이터 롤백
-        assertThat(memberRepository.find(username)).isEmpty();
-        assertThat(logRepository.find(username)).isEmpty();
+        assertThat(memberRepository.existsByUsername(username)).isFalse();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
 
         // client A (outerTxOn_success()메소드) 가 MemberService 호출하면서 트랜젝션 AOP 호출
         // -> 신규 트랜젝션 생성, 물리 트랜젝션 시작
@@ -164,8 +173,8 @@ class MemberServiceTest {
                 .isInstanceOf(UnexpectedRollbackException.class);
 
         // then : 모든 데이터 롤백
-        assertThat(memberRepository.find(username)).isEmpty();
-        assertThat(logRepository.find(username)).isEmpty();
+        assertThat(memberRepository.existsByUsername(username)).isFalse();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
 
         // 내부 트랜젝션에서 rollbackOnly 를 설정하므로 결과적으로 물리트랜젝션은 롤백한다.
         // UnexpectedRollbackException 가 던져진다.
@@ -192,8 +201,8 @@ class MemberServiceTest {
         memberService.joinV2(username);
 
         // then : member 저장, log 롤백
-        assertThat(memberRepository.find(username)).isPresent();
-        assertThat(logRepository.find(username)).isEmpty();
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
 
         // 물리 트랜젝션 1 : MemberService, MemberRepository
         // 물리 트랜젝션 2 : LogRepository (REQUIRES_NEW 옵션으로 새 트랜젝션)
@@ -204,6 +213,116 @@ class MemberServiceTest {
         // 항상 신규로 트랜젝션을 생성하는 옵션이기 때문이다.
         // 신규 트랜젝션이므로 rollbackOnly 표시가 되지 않는다.
     }
+
+    /**
+     * 회원가입을 시도한 로그를 남기는데 실패하더라도 회원가입은 유지해야된다.
+     * 요구사항 OK (커넥션 1개)
+     * MemberService     @Transactional : ON
+     * MemberRepository  @Transactional : ON
+     * LogRepository     @Transactional(NESTED) : savepoint
+     */
+    @Test
+    void recoverException_nested_success() {
+        // given
+        String username = "로그예외_recoverException_nested_success";
+
+        // when
+        memberService.joinV3(username);
+
+        // then : member 저장, log 는 savepoint 까지 롤백
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isFalse();
+
+        // 물리 트랜젝션 1 : MemberService, MemberRepository, LogRepository (같은 커넥션)
+        // LogRepository 시작시 savepoint 생성, 예외 발생시 savepoint 로 롤백
+        // 외부 트랜젝션은 rollbackOnly 가 표시되지 않으므로 커밋된다.
+    }
+
+    @Test
+    void nested_success() {
+        // given
+        String username = "nested_success";
+
+        // when
+        memberService.joinV3(username);
+
+        // then : 모든 데이터 정상 저장
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(logRepository.existsByMessage(username)).isTrue();
+    }
+
+    /**
+     * username unique (uk_member_username) : 같은 username 으로 다시 가입하면 회원 저장이 실패한다.
+     * joinV1 : 회원은 커밋 시점(flush)에 실패, 로그는 REQUIRES_NEW 로 먼저 커밋된다.
+     */
+    @Test
+    void joinV1_duplicateUsername() {
+        // given
+        String username = "duplicate_joinV1";
+        memberService.joinV1(username);
+
+        // when
+        assertThatThrownBy(() -> memberService.joinV1(username))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        // then
+        assertThat(countMembers(username)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from log where message = ?", Long.class, username))
+                .isEqualTo(2);
+    }
+
+    /**
+     * joinV2 : 회원 저장(MemberRepository 트랜젝션)에서 실패하므로 로그는 저장하지 않는다.
+     */
+    @Test
+    void joinV2_duplicateUsername() {
+        // given
+        String username = "duplicate_joinV2";
+        memberService.joinV2(username);
+
+        // when
+        assertThatThrownBy(() -> memberService.joinV2(username))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        // then
+        assertThat(countMembers(username)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from log where message = ?", Long.class, username))
+                .isEqualTo(1);
+    }
+
+    private long countMembers(String username) {
+        return jdbcTemplate.queryForObject("select count(*) from member where username = ?", Long.class, username);
+    }
+
+    /**
+     * 청크 트랜젝션 : MemberRepository, LogRepository 가 청크 트랜젝션에 참여
+     * 로그예외가 있는 청크만 롤백 후 한건씩 다시 저장
+     */
+    @Test
+    void joinAll() {
+        // given : 1,000 명 중 2 명은 로그예외
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            usernames.add(i == 150 || i == 777 ? "로그예외_joinAll_" + i : "joinAll_" + i);
+        }
+
+        // when
+        JoinAllResult result = memberService.joinAll(usernames);
+
+        // then : 실패한 회원만 제외 (회원, 로그 모두 저장되지 않음)
+        assertThat(result.getRequested()).isEqualTo(1_000);
+        assertThat(result.getJoined()).isEqualTo(998);
+        assertThat(result.getFailedUsernames()).containsExactlyInAnyOrder("로그예외_joinAll_150", "로그예외_joinAll_777");
+        assertThat(result.getRetriedChunks()).isBetween(1L, 2L);
+        assertThat(memberRepository.existsByUsername("로그예외_joinAll_150")).isFalse();
+        assertThat(logRepository.existsByMessage("로그예외_joinAll_150")).isFalse();
+        for (String username : usernames) {
+            if (!username.startsWith("로그예외")) {
+                assertThat(memberRepository.existsByUsername(username)).isTrue();
+                assertThat(logRepository.existsByMessage(username)).isTrue();
+            }
+        }
+    }
 }
 // JPA 와 데이터 변경
 // JPA 를 통한 모든 데이터 변경 (등록, 수정, 삭제) 에는 트랜젝션이 필요하다.
@@ -0,0 +1,53 @@
+package hello.springtx.propagation;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * readOnly 트랜젝션 : FlushMode.MANUAL, 엔티티 read-only 로딩 (스냅샷 X, 변경감지 X)
+ */
+@SpringBootTest
+class ReadOnlyTxTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void readOnlySkipsFlushAndDirtyChecking() {
+        // given
+        String username = "readOnly_member";
+        memberRepository.save(new Member(username));
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // when : readOnly 트랜젝션에서 엔티티 변경
+        readOnly.executeWithoutResult(status -> {
+            Session session = em.unwrap(Session.class);
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+
+            Member member = em.createQuery("select m from Member m where m.username = :username", Member.class)
+                    .setParameter("username", username)
+                    .getSingleResult();
+            assertThat(session.isReadOnly(member)).isTrue();
+            member.setUsername("changed");
+        });
+
+        // then : flush 하지 않으므로 DB 는 그대로
+        assertThat(memberRepository.existsByUsername(username)).isTrue();
+        assertThat(memberRepository.existsByUsername("changed")).isFalse();
+    }
+}
@@ -0,0 +1,124 @@
+package hello.springtx.reactive;
+
+import hello.springtx.order.NotEnoughMoneyException;
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderService;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * JPA(JDBC) 와 R2DBC 가 같은 메모리 DB 를 사용하도록 이름을 지정한다.
+ */
+@SpringBootTest(properties = {
+        "order.reactive.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+        "order.reactive.r2dbc-url=r2dbc:pool:h2:mem:///reactive?maxSize=10"})
+class ReactiveOrderServiceTest {
+
+    @Autowired
+    ReactiveOrderService reactiveOrderService;
+    @Autowired
+    ReactiveOrderRepository reactiveOrderRepository;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    ApplicationContext context;
+
+    @Test
+    void contextUsesJpaDataSource() {
+        // ConnectionFactory 를 빈으로 등록하지 않으므로 DataSource, JpaTransactionManager 자동 설정이 유지된다.
+        assertThat(context.getBeansOfType(ConnectionFactory.class)).isEmpty();
+        assertThat(context.getBean(DataSource.class)).isNotNull();
+        assertThat(context.getBean(PlatformTransactionManager.class)).isInstanceOf(JpaTransactionManager.class);
+    }
+
+    @Test
+    void complete() {
+        Order order = newOrder("정상");
+
+        StepVerifier.create(reactiveOrderService.order(order))
+                .assertNext(saved -> assertThat(saved.getId()).isNotNull())
+                .verifyComplete();
+
+        // JPA 에서도 보인다.
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("완료");
+    }
+
+    @Test
+    void runtimeException() {
+        Order order = newOrder("예외");
+
+        StepVerifier.create(reactiveOrderService.order(order))
+                .expectErrorMessage("시스템 예외")
+                .verify();
+
+        // 롤백
+        assertThat(order.getId()).isNotNull();
+        assertThat(orderRepository.findById(order.getId())).isEmpty();
+    }
+
+    @Test
+    void bizException() {
+        Order order = newOrder("잔고부족");
+
+        StepVerifier.create(reactiveOrderService.order(order))
+                .expectError(NotEnoughMoneyException.class)
+                .verify();
+
+        // 커밋 후 예외 신호
+        assertThat(orderRepository.findById(order.getId()).get().getPayStatus()).isEqualTo("대기");
+    }
+
+    @Test
+    void sideBySide() throws NotEnoughMoneyException {
+        // given : JPA 로 저장
+        Order blocking = newOrder("정상");
+        orderService.order(blocking);
+
+        // when : R2DBC 로 저장
+        Order reactive = reactiveOrderService.order(newOrder("정상")).block(Duration.ofSeconds(5));
+
+        // then : 서로의 주문이 보이고 id 가 겹치지 않는다.
+        assertThat(reactiveOrderRepository.findById(blocking.getId()).block(Duration.ofSeconds(5)).getPayStatus())
+                .isEqualTo("완료");
+        assertThat(orderRepository.findById(reactive.getId())).isPresent();
+        assertThat(reactive.getId()).isNotEqualTo(blocking.getId());
+    }
+
+    @Test
+    void saveAllocatesIdsFromBlock() {
+        // when : 동시에 60건 저장
+        List<Long> ids = Flux.range(0, 60)
+                .flatMap(i -> reactiveOrderRepository.save(newOrder("정상")))
+                .map(Order::getId)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // then : 시퀀스 값마다 블록(50개)을 모두 사용하므로 id 가 촘촘하다. (시퀀스 값 하나당 id 1개면 간격이 50)
+        assertThat(ids).hasSize(60).doesNotHaveDuplicates();
+        assertThat(ids.stream().mapToLong(Long::longValue).max().getAsLong()
+                - ids.stream().mapToLong(Long::longValue).min().getAsLong()).isLessThan(100);
+    }
+
+    private Order newOrder(String username) {
+        Order order = new Order();
+        order.setUsername(username);
+        return order;
+    }
+}
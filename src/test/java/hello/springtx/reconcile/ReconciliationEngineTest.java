@@ -0,0 +1,132 @@
+package hello.springtx.reconcile;
+
+import hello.springtx.order.Order;
+import hello.springtx.order.OrderRepository;
+import hello.springtx.order.OrderResult;
+import hello.springtx.order.OrderService;
+import hello.springtx.outbox.OutboxEvent;
+import hello.springtx.outbox.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {"reconcile.partitions=4", "reconcile.threads=4", "reconcile.chunk-size=50",
+        "outbox.relay.enabled=true", "outbox.relay.interval-ms=3600000"})
+class ReconciliationEngineTest {
+
+    @Autowired
+    ReconciliationEngine engine;
+    @Autowired
+    OrderService orderService;
+    @Autowired
+    OrderRepository orderRepository;
+    @Autowired
+    ReconciliationCheckpointRepository checkpointRepository;
+    @Autowired
+    OutboxRepository outboxRepository;
+
+    @BeforeEach
+    void before() {
+        // 이전 테스트가 남긴 대기 주문 정리
+        engine.reconcile("cleanup", ids -> ids);
+    }
+
+    @Test
+    void reconcile() {
+        // given : 대기 주문 1000건
+        List<Long> pending = createPendingOrders(1000);
+
+        // when : 짝수 id 만 결제 승인
+        AtomicBoolean approvedInTransaction = new AtomicBoolean();
+        PaymentApprover evenIds = evenIds();
+        ReconciliationReport report = engine.reconcile("reconcile", ids -> {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                approvedInTransaction.set(true);
+            }
+            return evenIds.approve(ids);
+        });
+
+        // then
+        assertThat(report.isResumed()).isFalse();
+        assertThat(report.getPartitions()).isEqualTo(4);
+        assertThat(report.getScanned()).isEqualTo(1000);
+        long even = pending.stream().filter(id -> id % 2 == 0).count();
+        assertThat(report.getApproved()).isEqualTo(even);
+        assertThat(orderRepository.findAllById(pending)).allMatch(order ->
+                order.getPayStatus().equals(order.getId() % 2 == 0 ? "완료" : "대기"));
+        assertThat(checkpointRepository.findByJobNameOrderByPartitionNo("reconcile"))
+                .hasSize(4)
+                .allMatch(ReconciliationCheckpoint::isCompleted);
+        // 결제 승인은 트랜젝션 밖에서 호출
+        assertThat(approvedInTransaction).isFalse();
+        // 완료된 주문마다 결제 완료 이벤트 1건
+        Set<Long> pendingIds = new HashSet<>(pending);
+        assertThat(outboxRepository.findAll())
+                .filteredOn(event -> pendingIds.contains(event.getOrderId()))
+                .filteredOn(event -> event.getEventType().equals(OutboxEvent.PAYMENT_COMPLETED))
+                .extracting(OutboxEvent::getOrderId)
+                .containsExactlyInAnyOrderElementsOf(
+                        pending.stream().filter(id -> id % 2 == 0).collect(Collectors.toList()));
+    }
+
+    @Test
+    void resume() {
+        // given
+        List<Long> pending = createPendingOrders(1000);
+        long failAt = pending.get(pending.size() / 2);
+
+        // when : failAt 이 포함된 청크에서 실패
+        assertThatThrownBy(() -> engine.reconcile("resume", ids -> {
+            if (ids.contains(failAt)) {
+                throw new IllegalStateException("결제 시스템 장애");
+            }
+            return ids;
+        })).isInstanceOf(IllegalStateException.class);
+
+        // then : 실패한 청크는 롤백, 나머지는 커밋
+        assertThat(orderRepository.findById(failAt).get().getPayStatus()).isEqualTo("대기");
+        assertThat(checkpointRepository.findByJobNameOrderByPartitionNo("resume"))
+                .anyMatch(c -> !c.isCompleted());
+        long approvedBefore = orderRepository.findAllById(pending).stream()
+                .filter(order -> order.getPayStatus().equals("완료"))
+                .count();
+        assertThat(approvedBefore).isGreaterThan(0);
+
+        // when : 재시작
+        ReconciliationReport report = engine.reconcile("resume", ids -> ids);
+
+        // then : 실패한 파티션의 체크포인트부터 처리 (전체를 다시 읽지 않음)
+        assertThat(report.isResumed()).isTrue();
+        assertThat(report.getPartitions()).isEqualTo(1);
+        assertThat(report.getApproved()).isEqualTo(1000 - approvedBefore);
+        assertThat(report.getScanned()).isLessThan(1000);
+        assertThat(orderRepository.findAllById(pending)).allMatch(order -> order.getPayStatus().equals("완료"));
+    }
+
+    private PaymentApprover evenIds() {
+        return ids -> ids.stream().filter(id -> id % 2 == 0).collect(Collectors.toList());
+    }
+
+    private List<Long> createPendingOrders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setUsername("잔고부족");
+            orders.add(order);
+        }
+        return orderService.orderAll(orders).stream()
+                .map(OrderResult::getOrderId)
+                .collect(Collectors.toList());
+    }
+}
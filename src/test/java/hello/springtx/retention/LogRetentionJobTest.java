@@ -0,0 +1,113 @@
+package hello.springtx.retention;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogDto;
+import hello.springtx.propagation.LogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(properties = {"log.retention.days=30", "log.retention.archive=true", "log.retention.chunk-size=40"})
+class LogRetentionJobTest {
+
+    @Autowired
+    LogRetentionJob logRetentionJob;
+    @Autowired
+    LogRepository logRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    EntityManager entityManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void purgeExpired() {
+        // given : 40일 전 100건, 35일 전 50건, 오늘 10건
+        LocalDateTime now = LocalDateTime.now();
+        List<Log> logs = new ArrayList<>();
+        logs.addAll(logs("retention_old", now.minusDays(40), 100));
+        logs.addAll(logs("retention_old", now.minusDays(35), 50));
+        logs.addAll(logs("retention_new", now, 10));
+        logRepository.saveAll(logs);
+
+        // when
+        RetentionReport report = logRetentionJob.purgeExpired();
+
+        // then : 지난 bucket 만 보관 테이블로 이동, 40건씩 나누어 처리 (100건 : 3번, 50건 : 2번)
+        assertThat(report.getBuckets()).containsExactly(
+                Log.bucketOf(LocalDate.now().minusDays(40)), Log.bucketOf(LocalDate.now().minusDays(35)));
+        assertThat(report.getChunks()).isEqualTo(5);
+        assertThat(report.getArchivedRows()).isEqualTo(150);
+        assertThat(report.getDeletedRows()).isEqualTo(150);
+        assertThat(count("select count(*) from log where message = 'retention_old'")).isZero();
+        assertThat(count("select count(*) from log_archive where message = 'retention_old'")).isEqualTo(150);
+        assertThat(count("select count(*) from log where message = 'retention_new'")).isEqualTo(10);
+
+        // 다시 실행하면 정리할 bucket 이 없다.
+        assertThat(logRetentionJob.purgeExpired().getBuckets()).isEmpty();
+    }
+
+    @Test
+    void findBetween() {
+        // given
+        LocalDateTime base = LocalDate.now().minusDays(3).atStartOfDay();
+        List<Log> logs = new ArrayList<>();
+        logs.addAll(logs("range_before", base.minusMinutes(1), 5));
+        logs.addAll(logs("range_in", base, 5));
+        logs.addAll(logs("range_in", base.plusDays(1).plusHours(12), 5));
+        logs.addAll(logs("range_after", base.plusDays(2), 5));
+        logRepository.saveAll(logs);
+
+        // when : [base, base + 2일)
+        List<LogDto> page = logRepository.findBetween(base, base.plusDays(2), 0, 100);
+
+        // then
+        assertThat(page).hasSize(10).extracting(LogDto::getMessage).containsOnly("range_in");
+        String plan = jdbcTemplate.queryForObject(
+                "explain select * from log where bucket between 20260101 and 20260102", String.class);
+        assertThat(plan).containsIgnoringCase("idx_log_bucket_created");
+    }
+
+    @Test
+    void bucketFollowsCreatedAt() {
+        // given
+        Log log = new Log("bucket_sync", LocalDateTime.now().minusDays(5));
+        logRepository.saveAll(List.of(log));
+
+        // when : createdAt 변경 (bulk update 가 아닌 엔티티 변경)
+        LocalDateTime changed = LocalDateTime.now().minusDays(2);
+        transactionTemplate.executeWithoutResult(status -> {
+            Log managed = entityManager.find(Log.class, log.getId());
+            ReflectionTestUtils.setField(managed, "createdAt", changed);
+        });
+
+        // then : @PreUpdate 로 bucket 도 함께 변경
+        assertThat(jdbcTemplate.queryForObject("select bucket from log where id = ?", Integer.class, log.getId()))
+                .isEqualTo(Log.bucketOf(changed.toLocalDate()));
+    }
+
+    private List<Log> logs(String message, LocalDateTime createdAt, int count) {
+        List<Log> logs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            logs.add(new Log(message, createdAt));
+        }
+        return logs;
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
@@ -0,0 +1,58 @@
+package hello.springtx.routing;
+
+import hello.springtx.propagation.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 두 개의 H2 메모리 DB 를 PRIMARY, REPLICA 로 사용한다.
+ * REPLICA 에만 있는 데이터로 어느 쪽으로 라우팅되었는지 확인
+ */
+@SpringBootTest(properties = {
+        "datasource.routing.enabled=true",
+        "datasource.replica.url=" + ReadWriteRoutingTest.REPLICA_URL})
+class ReadWriteRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    DataSource dataSource;
+
+    @BeforeEach
+    void initReplica() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("create table if not exists member (id bigint primary key, username varchar(255))");
+        replica.update("merge into member (id, username) key (id) values (1, 'replica_only')");
+    }
+
+    @Test
+    void readOnlyToReplica() throws Exception {
+        ReadWriteRoutingDataSource routing = dataSource.unwrap(ReadWriteRoutingDataSource.class);
+        long replicaRoutes = routing.getReplicaRouteCount();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        // readOnly 트랜젝션 : REPLICA
+        assertThat(readOnly.execute(status -> memberRepository.existsByUsername("replica_only"))).isTrue();
+        assertThat(routing.getReplicaRouteCount()).isEqualTo(replicaRoutes + 1);
+
+        // 읽기/쓰기 트랜젝션 : PRIMARY
+        assertThat(readWrite.execute(status -> memberRepository.existsByUsername("replica_only"))).isFalse();
+    }
+}
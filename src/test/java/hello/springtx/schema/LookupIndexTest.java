@@ -0,0 +1,70 @@
+package hello.springtx.schema;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * 조회 시간 비교 (1k -> 1M 건) 는 src/jmh 의 LookupIndexBenchmark
+ */
+@SpringBootTest
+class LookupIndexTest {
+
+    // 시퀀스로 발급되는 ID 와 겹치지 않도록 큰 값부터 사용
+    static final long ID_OFFSET = 1_000_000_000L;
+
+    @Autowired
+    SchemaIndexChecker schemaIndexChecker;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clear() {
+        jdbcTemplate.update("delete from member where id > ?", ID_OFFSET);
+    }
+
+    @Test
+    void repositoryLookupsIndexed() {
+        assertThat(schemaIndexChecker.findUnindexedLookups()).isEmpty();
+
+        String plan = jdbcTemplate.queryForObject("explain select * from member where username = 'bulk_1'", String.class);
+        assertThat(plan).containsIgnoringCase("uk_member_username");
+    }
+
+    /**
+     * 새 쿼리의 조건 컬럼에 인덱스가 없으면 찾아낸다.
+     */
+    @Test
+    void unindexedLookup() {
+        assertThat(schemaIndexChecker.findUnindexedLookup("select o from Order o where o.username = :username"))
+                .hasValue("jpql : orders[username]");
+        // 조건 컬럼 중 하나라도 인덱스 첫번째 컬럼이면 인덱스를 사용할 수 있다.
+        assertThat(schemaIndexChecker.findUnindexedLookup(
+                "select o from Order o where o.username = :username and o.payStatus = :payStatus")).isEmpty();
+    }
+
+    /**
+     * 함수로 감싼 조건 컬럼은 인덱스를 사용할 수 없다. and ( ... ) 는 함수가 아니다.
+     */
+    @Test
+    void functionWrappedLookup() {
+        assertThat(schemaIndexChecker.findUnindexedLookup("select m from Member m where lower(m.username) = :username"))
+                .hasValue("jpql : member[] function[username]");
+        assertThat(schemaIndexChecker.findUnindexedLookup(
+                "select l from Log l where l.message like :prefix and (l.message > :m or (l.message = :m and l.Id > :id))"))
+                .isEmpty();
+    }
+
+    @Test
+    void usernameUnique() {
+        jdbcTemplate.update("insert into member (id, username) values (?, ?)", ID_OFFSET + 1, "unique_1");
+
+        assertThatThrownBy(() -> jdbcTemplate.update("insert into member (id, username) values (?, ?)", ID_OFFSET + 2, "unique_1"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}